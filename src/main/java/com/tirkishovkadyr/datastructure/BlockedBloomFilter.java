@@ -0,0 +1,119 @@
+package com.tirkishovkadyr.datastructure;
+
+/*
+  A blocked Bloom filter: a set which may report false positives but never
+  false negatives, and which uses a few bits per element.
+
+  Unlike a classic Bloom filter, which spreads the k bits of a key over the
+  whole bit array, a blocked filter first picks a 512 bit block (one cache
+  line) for the key and sets all its k bits inside that block. A query
+  therefore costs a single cache miss, at the price of a slightly higher
+  false positive rate than a classic filter with the same number of bits.
+
+  The filter is sized with the classic formulas:
+                   m = -n ln(p) / ln(2)^2       k = m / n ln(2)
+  where n is the expected number of insertions and p the desired false
+  positive rate. Blocks fill up unevenly, which matters more the lower the
+  rate, so m is grown by 10% for every factor of ten below a rate of 1.
+ */
+
+import java.util.Arrays;
+
+public class BlockedBloomFilter<T> {
+
+    // A block is eight longs, the size of a cache line
+    private static final int BLOCK_BITS = 512, BLOCK_WORDS = 8;
+
+    private static final int MAX_HASH_COUNT = 16;
+
+    private final long[] words;
+    private final int blockCount, hashCount;
+    private final double falsePositiveRate;
+
+    public BlockedBloomFilter(int expectedInsertions, double falsePositiveRate) {
+
+        if (expectedInsertions < 0)
+            throw new IllegalArgumentException("Illegal expectedInsertions: " + expectedInsertions);
+
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1 || Double.isNaN(falsePositiveRate))
+            throw new IllegalArgumentException("Illegal falsePositiveRate: " + falsePositiveRate);
+
+        int n = Math.max(1, expectedInsertions);
+        double bits = -n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+        bits *= 1 - 0.1 * Math.log10(falsePositiveRate);
+        if (bits / BLOCK_BITS * BLOCK_WORDS > Integer.MAX_VALUE - 8)
+            throw new IllegalArgumentException("Filter too large: " + expectedInsertions + " insertions");
+
+        this.falsePositiveRate = falsePositiveRate;
+        blockCount = (int) Math.max(1, Math.ceil(bits / BLOCK_BITS));
+        hashCount = (int) Math.max(1, Math.min(MAX_HASH_COUNT, Math.round(-Math.log(falsePositiveRate) / Math.log(2))));
+        words = new long[blockCount * BLOCK_WORDS];
+    }
+
+    // The false positive rate the filter was sized for
+    public double falsePositiveRate() {
+        return falsePositiveRate;
+    }
+
+    // The number of bits in the filter
+    public long bitSize() {
+        return (long) words.length * Long.SIZE;
+    }
+
+    // Removes all the elements from the filter
+    public void clear() {
+        Arrays.fill(words, 0L);
+    }
+
+    // Spreads the hash code of the key over 64 bits with the finalizer of MurmurHash3
+    private static long hash(Object key) {
+        long h = key.hashCode() * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    // The high 32 bits of the hash pick the block, the low ones the bits inside it
+    private int blockOf(long h) {
+        return (int) (((h >>> 32) * blockCount) >>> 32) * BLOCK_WORDS;
+    }
+
+    // Adds the element to the filter
+    public void add(T key) {
+        if (key == null) throw new IllegalArgumentException("Null key");
+        long h = hash(key);
+        int block = blockOf(h), h1 = (int) h, h2 = (int) (h >>> 16) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            int bit = (h1 + i * h2) & (BLOCK_BITS - 1);
+            words[block + (bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    // Returns false if the element was certainly never added, true if it might have been
+    public boolean mightContain(T key) {
+        if (key == null) return false;
+        long h = hash(key);
+        int block = blockOf(h), h1 = (int) h, h2 = (int) (h >>> 16) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            int bit = (h1 + i * h2) & (BLOCK_BITS - 1);
+            if ((words[block + (bit >>> 6)] & (1L << bit)) == 0) return false;
+        }
+        return true;
+    }
+
+    // Tests every key of the array, storing in results[i] whether keys[i] might
+    // be in the filter. Returns the number of keys which might be in the filter.
+    // The lookups are independent, so the CPU can overlap their cache misses
+    public int mightContainAll(T[] keys, boolean[] results) {
+        if (results.length < keys.length)
+            throw new IllegalArgumentException("results is shorter than keys");
+
+        int count = 0;
+        for (int i = 0; i < keys.length; i++)
+            if (results[i] = mightContain(keys[i])) count++;
+        return count;
+    }
+}
@@ -0,0 +1,51 @@
+package com.tirkishovkadyr.datastructure;
+
+/*
+ * Converts keys or values to and from bytes when hash-tables are written
+ * to and read back from a snapshot. The codecs of the common types are
+ * provided as constants.
+ */
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+public interface Codec<T> {
+
+    void write(DataOutput out, T value) throws IOException;
+
+    T read(DataInput in) throws IOException;
+
+    Codec<Integer> INT = new Codec<>() {
+        @Override public void write(DataOutput out, Integer value) throws IOException { out.writeInt(value); }
+        @Override public Integer read(DataInput in) throws IOException { return in.readInt(); }
+    };
+
+    Codec<Long> LONG = new Codec<>() {
+        @Override public void write(DataOutput out, Long value) throws IOException { out.writeLong(value); }
+        @Override public Long read(DataInput in) throws IOException { return in.readLong(); }
+    };
+
+    Codec<Double> DOUBLE = new Codec<>() {
+        @Override public void write(DataOutput out, Double value) throws IOException { out.writeDouble(value); }
+        @Override public Double read(DataInput in) throws IOException { return in.readDouble(); }
+    };
+
+    // Strings are written as modified UTF-8 and may not exceed 65535 bytes
+    Codec<String> STRING = new Codec<>() {
+        @Override public void write(DataOutput out, String value) throws IOException { out.writeUTF(value); }
+        @Override public String read(DataInput in) throws IOException { return in.readUTF(); }
+    };
+
+    Codec<byte[]> BYTES = new Codec<>() {
+        @Override public void write(DataOutput out, byte[] value) throws IOException {
+            out.writeInt(value.length);
+            out.write(value);
+        }
+        @Override public byte[] read(DataInput in) throws IOException {
+            byte[] value = new byte[in.readInt()];
+            in.readFully(value);
+            return value;
+        }
+    };
+}
@@ -0,0 +1,134 @@
+package com.tirkishovkadyr.datastructure;
+
+/**
+ * A thread safe Fenwick Tree implementation which supports
+ * point updates and sum range queries without locking
+ *
+ * Every cell is updated with an atomic getAndAdd through a VarHandle, so
+ * any number of threads can call 'add' at once and no update is lost.
+ *
+ * Under heavy contention the threads still fight over the same cells,
+ * the root ranges above all. A tree built with more than one stripe keeps
+ * that many independent trees, like LongAdder keeps several cells, and a
+ * query sums the stripe trees. Every thread starts on a stripe picked by a
+ * hash of its id. When its 'add' loses the race for the first cell of the
+ * path it rehashes to another stripe, so threads which collide on a stripe
+ * spread out instead of sharing it for good. This trades slower queries for
+ * less contention on 'add'.
+ *
+ * Consistency: an 'add' which completed before a query started is always
+ * seen by it. The cells read by one prefixSum(i) cover disjoint ranges, so
+ * at most one of them is on the update path of an index, and an 'add'
+ * running concurrently with the query is seen either in full or not at
+ * all. Different concurrent adds may be seen in any combination, though,
+ * so prefixSum is not a snapshot. sum(i, j) is the difference of two prefix
+ * sums and may count a concurrent add at an index below i in one and not
+ * the other, so it is only exact once the updates have quiesced.
+ */
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+public class ConcurrentFenwickTree {
+
+    private static final VarHandle LONGS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    // Stripe trees are padded so that the same cell of two stripes is never
+    // on the same cache line
+    private static final int PADDING = 8;
+
+    // The stripe probe of every thread, shared by all trees like LongAdder's
+    private static final ThreadLocal<int[]> PROBE = ThreadLocal.withInitial(() -> new int[] { seed() });
+
+    private final int size, stripes, stride;
+
+    // The stripe trees one after the other, stripe s at [s * stride, s * stride + size]
+    private final long[] tree;
+
+    // Create an empty Fenwick tree with a single stripe
+    public ConcurrentFenwickTree(int sz) {
+        this(sz, 1);
+    }
+
+    // Create an empty Fenwick tree with 'stripes' stripes, rounded up to a power of two
+    public ConcurrentFenwickTree(int sz, int stripes) {
+        if (sz < 0) throw new IllegalArgumentException("Illegal size: " + sz);
+        if (stripes < 1) throw new IllegalArgumentException("Illegal stripes: " + stripes);
+        size = sz;
+        this.stripes = stripes == 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+        stride = this.stripes == 1 ? sz + 1 : sz + 1 + PADDING;
+
+        long cells = (long) this.stripes * stride;
+        if (cells > Integer.MAX_VALUE - 8) throw new IllegalArgumentException("Too many cells: " + cells);
+        tree = new long[(int) cells];
+    }
+
+    private int lsb(int i) {
+        return i & -i;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int stripes() {
+        return stripes;
+    }
+
+    // Add 'k' to index 'i', one based
+    public void add(int i, long k) {
+        if (i < 1 || i > size) throw new IllegalArgumentException("Index out of bounds; received: " + i);
+        int base = 0;
+        if (stripes > 1) {
+            // Take the first cell with a compare and set. Failing it means
+            // another thread is updating the same stripe, so move on to
+            // another one before any cell has been touched
+            int[] probe = PROBE.get();
+            base = (probe[0] & (stripes - 1)) * stride;
+            long v = (long) LONGS.getVolatile(tree, base + i);
+            while (!LONGS.compareAndSet(tree, base + i, v, v + k)) {
+                probe[0] = rehash(probe[0]);
+                base = (probe[0] & (stripes - 1)) * stride;
+                v = (long) LONGS.getVolatile(tree, base + i);
+            }
+            i += lsb(i);
+        }
+        while (i <= size) {
+            LONGS.getAndAdd(tree, base + i, k);
+            i += lsb(i);
+        }
+    }
+
+    // Computes the prefix sum from [1, i], one based
+    public long prefixSum(int i) {
+        if (i < 0 || i > size) throw new IllegalArgumentException("Index out of bounds; received: " + i);
+        long sum = 0L;
+        for (int base = 0; base < tree.length; base += stride)
+            for (int x = i; x != 0; x &= ~lsb(x))
+                sum += (long) LONGS.getVolatile(tree, base + x);
+        return sum;
+    }
+
+    // Returns the sum of the interval [i, j], one based
+    public long sum(int i, int j) {
+        if (j < i) throw new IllegalArgumentException("Make sure j >= i");
+        return prefixSum(j) - prefixSum(i - 1);
+    }
+
+    // The initial probe of the calling thread, from a hash of its id. Never
+    // zero since 'rehash' would keep it at zero
+    @SuppressWarnings("deprecation")
+    private static int seed() {
+        long id = Thread.currentThread().getId();
+        int h = HashStrategy.fmix32((int) (id ^ (id >>> 32)));
+        return h == 0 ? 1 : h;
+    }
+
+    // Moves a probe to a pseudo random next value with a xorshift step
+    private static int rehash(int probe) {
+        probe ^= probe << 13;
+        probe ^= probe >>> 17;
+        probe ^= probe << 5;
+        return probe;
+    }
+}
@@ -0,0 +1,95 @@
+package com.tirkishovkadyr.datastructure;
+
+/*
+  A count-min sketch estimating how often keys were seen, in a fixed amount
+  of memory regardless of the number of distinct keys.
+
+  Every key maps to one 4-bit counter in each of the DEPTH rows and its
+  estimated frequency is the smallest of those counters. Collisions can only
+  inflate a counter, so the estimate is never below the true count (up to the
+  saturation value of 15). Only the smallest counters of a key are
+  incremented (conservative update), which keeps the inflation down. Sixteen
+  counters are packed in every long, half a byte per counter.
+
+  To let the sketch follow changes in popularity, all counters are halved
+  once 'sampleSize' increments were made since the last halving (aging).
+ */
+
+import java.util.Arrays;
+
+public class CountMinSketch {
+
+    private static final int DEPTH = 4, MAX_COUNT = 15;
+
+    // One odd multiplier per row to derive independent indexes from a single hash
+    private static final int[] SEEDS = { 0x97cb3127, 0x3c6ef373, 0xbb67ae85, 0x6a09e667 };
+
+    // Clears the top bit of every 4-bit counter of a long after a shift
+    private static final long HALVING_MASK = 0x7777777777777777L;
+
+    // The counters of all the rows, row r occupies [r * width, (r + 1) * width).
+    // Counter i is the nibble (i & 15) of counters[i >>> 4]
+    private final long[] counters;
+    private final int width, shift;
+    private final int sampleSize;
+
+    // Increments made since the last aging
+    private int additions = 0;
+
+    // Creates a sketch suited to track the frequencies of about 'expectedKeys' keys
+    public CountMinSketch(int expectedKeys) {
+        if (expectedKeys <= 0)
+            throw new IllegalArgumentException("Illegal expectedKeys: " + expectedKeys);
+
+        width = Math.max(16, Integer.highestOneBit(Math.min(expectedKeys, 1 << 28) - 1) << 1);
+        shift = Integer.numberOfLeadingZeros(width) + 1;
+        counters = new long[DEPTH * width / 16];
+        sampleSize = 10 * width;
+    }
+
+    // The index of the counter of a spread hash in row r. Multiplying by an odd
+    // seed and keeping the top bits gives every row its own hash function
+    private int indexOf(int spread, int r) {
+        return r * width + ((spread * SEEDS[r]) >>> shift);
+    }
+
+    private int count(int i) {
+        return (int) (counters[i >>> 4] >>> ((i & 15) << 2)) & MAX_COUNT;
+    }
+
+    // Records one occurrence of the key
+    public void increment(Object key) {
+        final int hash = HashStrategy.fmix32(key.hashCode());
+
+        int min = MAX_COUNT;
+        for (int r = 0; r < DEPTH; r++) min = Math.min(min, count(indexOf(hash, r)));
+        if (min == MAX_COUNT) return;
+
+        // The counters incremented are below 15, so no carry reaches the next nibble
+        for (int r = 0; r < DEPTH; r++) {
+            int i = indexOf(hash, r);
+            if (count(i) == min) counters[i >>> 4] += 1L << ((i & 15) << 2);
+        }
+
+        if (++additions == sampleSize) age();
+    }
+
+    // Returns the estimated number of occurrences of the key, at most 15
+    public int frequency(Object key) {
+        final int hash = HashStrategy.fmix32(key.hashCode());
+        int min = MAX_COUNT;
+        for (int r = 0; r < DEPTH; r++) min = Math.min(min, count(indexOf(hash, r)));
+        return min;
+    }
+
+    // Halves every counter so that past popularity fades away
+    private void age() {
+        for (int i = 0; i < counters.length; i++) counters[i] = (counters[i] >>> 1) & HALVING_MASK;
+        additions /= 2;
+    }
+
+    public void clear() {
+        Arrays.fill(counters, 0L);
+        additions = 0;
+    }
+}
@@ -0,0 +1,168 @@
+package com.tirkishovkadyr.datastructure;
+
+/*
+ * A min priority queue implementation using a d-ary heap stored in a plain
+ * array.
+ *
+ * A node at index i has its children at [d*i + 1, d*i + d] and its parent at
+ * (i - 1) / d. A larger degree makes the tree shallower, so 'add' does fewer
+ * comparisons, and puts all the children of a node next to each other in
+ * memory, so 'poll' touches fewer cache lines.
+ *
+ * 'poll' uses Floyd's bottom-up strategy: the hole left by the root is first
+ * moved down to a leaf along the smallest children, without comparing against
+ * the element which will fill it, and only then is the last element placed in
+ * the hole and swum up. As the last element almost always belongs near the
+ * bottom, this saves most of the comparisons a regular sink would do.
+ */
+
+import java.util.Arrays;
+import java.util.Collection;
+
+@SuppressWarnings("unchecked")
+public class DaryPQueue <T extends Comparable<T>> {
+
+    // The degree of every node in the heap
+    private final int d;
+
+    // log2(d) if d is a power of two, in which case the parent index is
+    // computed with a shift instead of an integer division, -1 otherwise
+    private final int shift;
+
+    // The number of elements currently inside the heap
+    private int heapSize = 0;
+
+    // The elements in heap order
+    private Object[] heap;
+
+    public DaryPQueue(int degree) {
+        this(degree, 16);
+    }
+
+    // Construct a priority queue with an initial capacity
+    public DaryPQueue(int degree, int sz) {
+        if (degree < 2) throw new IllegalArgumentException("Illegal degree: " + degree);
+        d = degree;
+        shift = Integer.bitCount(degree) == 1 ? Integer.numberOfTrailingZeros(degree) : -1;
+        heap = new Object[Math.max(1, sz)];
+    }
+
+    // Construct a priority queue using heapify, O(n)
+    public DaryPQueue(int degree, Collection<? extends T> elems) {
+        this(degree, elems.size());
+        for (T elem : elems) {
+            if (elem == null) throw new IllegalArgumentException();
+            heap[heapSize++] = elem;
+        }
+        for (int i = (heapSize - 2) / d; i >= 0; i--) sink(i);
+    }
+
+    public int degree() {
+        return d;
+    }
+
+    // Return true/false depending on if the priority queue is empty
+    public boolean isEmpty() {
+        return heapSize == 0;
+    }
+
+    // Returns the size of the heap
+    public int size() {
+        return heapSize;
+    }
+
+    // Clears everything inside the heap, O(n)
+    public void clear() {
+        Arrays.fill(heap, 0, heapSize, null);
+        heapSize = 0;
+    }
+
+    // Returns the element with the lowest priority, null if the queue is empty
+    public T peek() {
+        return isEmpty() ? null : (T) heap[0];
+    }
+
+    // Adds an element to the priority queue, the element must not be null, O(log_d(n))
+    public void add(T elem) {
+        if (elem == null) throw new IllegalArgumentException();
+        if (heapSize == heap.length) heap = Arrays.copyOf(heap, heapSize * 2);
+
+        // Move the parents down into the hole until the element fits
+        int hole = heapSize++;
+        while (hole > 0) {
+            int parent = parent(hole);
+            T p = (T) heap[parent];
+            if (p.compareTo(elem) <= 0) break;
+            heap[hole] = p;
+            hole = parent;
+        }
+        heap[hole] = elem;
+    }
+
+    // Removes the root of the heap, O(d*log_d(n))
+    public T poll() {
+        if (isEmpty()) return null;
+
+        T root = (T) heap[0];
+        T last = (T) heap[--heapSize];
+        heap[heapSize] = null;
+        if (heapSize == 0) return root;
+
+        // Move the hole down to a leaf, always following the smallest child
+        int hole = 0;
+        for (int child = 1; child < heapSize; child = d * hole + 1) {
+            int min = child, end = Math.min(child + d, heapSize);
+            T minElem = (T) heap[min];
+            for (int j = child + 1; j < end; j++) {
+                T elem = (T) heap[j];
+                if (elem.compareTo(minElem) < 0) {
+                    min = j;
+                    minElem = elem;
+                }
+            }
+            heap[hole] = minElem;
+            hole = min;
+        }
+
+        // Swim the last element up from the leaf
+        while (hole > 0) {
+            int parent = parent(hole);
+            T p = (T) heap[parent];
+            if (p.compareTo(last) <= 0) break;
+            heap[hole] = p;
+            hole = parent;
+        }
+        heap[hole] = last;
+        return root;
+    }
+
+    private int parent(int i) {
+        return shift >= 0 ? (i - 1) >> shift : (i - 1) / d;
+    }
+
+    // Top down node sink, used by heapify
+    private void sink(int k) {
+        T elem = (T) heap[k];
+        for (int child = d * k + 1; child < heapSize; child = d * k + 1) {
+            int min = child, end = Math.min(child + d, heapSize);
+            for (int j = child + 1; j < end; j++)
+                if (((T) heap[j]).compareTo((T) heap[min]) < 0) min = j;
+            if (elem.compareTo((T) heap[min]) <= 0) break;
+            heap[k] = heap[min];
+            k = min;
+        }
+        heap[k] = elem;
+    }
+
+    // Checks if this heap is a min heap. This method is just for testing
+    // purposes to make sure the heap invariant is still being maintained
+    public boolean isMinHeap() {
+        for (int i = 1; i < heapSize; i++)
+            if (((T) heap[i]).compareTo((T) heap[(i - 1) / d]) < 0) return false;
+        return true;
+    }
+
+    @Override public String toString() {
+        return Arrays.toString(Arrays.copyOf(heap, heapSize));
+    }
+}
@@ -5,6 +5,8 @@ package com.tirkishovkadyr.datastructure;
  * point updates and sum range queries
  */
 
+import java.util.random.RandomGenerator;
+
 public class FenwickTree {
 
     // This array contains the Fenwick tree ranges
@@ -77,4 +79,29 @@ public class FenwickTree {
         long value = sum(i, i);
         add(i, k - value);
     }
+
+    // Returns the smallest index i such that prefixSum(i) >= target, or n + 1
+    // if the total is smaller than target, one based. All the values must be
+    // non negative. Instead of a binary search over prefixSum, which is
+    // O(log^2(n)), the index is built bit by bit from the top while walking
+    // down the tree, O(log(n))
+    public int lowerBound(long target) {
+        int n = tree.length - 1, pos = 0;
+        for (int step = Integer.highestOneBit(n); step != 0; step >>= 1) {
+            int next = pos + step;
+            if (next <= n && tree[next] < target) {
+                pos = next;
+                target -= tree[next];
+            }
+        }
+        return pos + 1;
+    }
+
+    // Picks an index at random with a probability proportional to its value,
+    // one based. All the values must be non negative, O(log(n))
+    public int sampleWeighted(RandomGenerator random) {
+        long total = prefixSum(tree.length - 1);
+        if (total <= 0) throw new IllegalStateException("The values add up to " + total);
+        return lowerBound(random.nextLong(total) + 1);
+    }
 }
@@ -0,0 +1,113 @@
+package com.tirkishovkadyr.datastructure;
+
+/**
+ * A two dimensional Fenwick Tree implementation which supports
+ * point updates and rectangle sum queries
+ *
+ * Cell (r, c) of the tree covers rows (r - lsb(r), r] and columns
+ * (c - lsb(c), c], so both updates and prefix sums walk O(log(rows))
+ * rows and O(log(cols)) columns. The tree is one flat long[] in row
+ * major order, with a stride of cols + 1.
+ */
+
+public class FenwickTree2D {
+
+    private final int rows, cols, stride;
+
+    // This array contains the Fenwick tree rectangles, one based
+    private final long[] tree;
+
+    // Create an empty Fenwick tree of rows x cols
+    public FenwickTree2D(int rows, int cols) {
+        if (rows < 0 || cols < 0) throw new IllegalArgumentException("Illegal dimensions: " + rows + " x " + cols);
+        this.rows = rows;
+        this.cols = cols;
+        stride = cols + 1;
+        long cells = (rows + 1L) * stride;
+        if (cells > Integer.MAX_VALUE - 8) throw new IllegalArgumentException("Too many cells: " + cells);
+        tree = new long[(int) cells];
+    }
+
+    // Make sure the 'values' array is one based in both dimensions meaning
+    // values[0] and values[r][0] are not used, O(rows * cols) construction
+    public FenwickTree2D(long[][] values) {
+        this(values.length - 1, values.length > 1 ? values[1].length - 1 : 0);
+
+        for (int r = 1; r <= rows; r++) {
+            if (values[r].length != stride) throw new IllegalArgumentException("Rows have different lengths");
+            System.arraycopy(values[r], 1, tree, r * stride + 1, cols);
+        }
+
+        // Build every row as a one dimensional tree, then every column
+        for (int r = 1; r <= rows; r++) {
+            for (int c = 1; c <= cols; c++) {
+                int p = c + lsb(c);
+                if (p <= cols) tree[r * stride + p] += tree[r * stride + c];
+            }
+        }
+        for (int r = 1; r <= rows; r++) {
+            int p = r + lsb(r);
+            if (p > rows) continue;
+            for (int c = 1; c <= cols; c++) tree[p * stride + c] += tree[r * stride + c];
+        }
+    }
+
+    private int lsb(int i) {
+        return i & -i;
+    }
+
+    public int rows() {
+        return rows;
+    }
+
+    public int cols() {
+        return cols;
+    }
+
+    // Add 'k' to cell (r, c), one based
+    public void add(int r, int c, long k) {
+        cellInBoundsOrThrow(r, c);
+        for (int i = r; i <= rows; i += lsb(i))
+            for (int j = c; j <= cols; j += lsb(j))
+                tree[i * stride + j] += k;
+    }
+
+    // Set cell (r, c) to be equal to k, one based
+    public void set(int r, int c, long k) {
+        add(r, c, k - get(r, c));
+    }
+
+    // Returns the value of cell (r, c), one based
+    public long get(int r, int c) {
+        return sum(r, c, r, c);
+    }
+
+    // Computes the sum of the rectangle [1, r] x [1, c], one based
+    public long prefixSum(int r, int c) {
+        if (r < 0 || r > rows || c < 0 || c > cols)
+            throw new IllegalArgumentException("Cell out of bounds; received: (" + r + ", " + c + ")");
+        return prefixSumUnchecked(r, c);
+    }
+
+    private long prefixSumUnchecked(int r, int c) {
+        long sum = 0L;
+        for (int i = r; i != 0; i &= ~lsb(i))
+            for (int j = c; j != 0; j &= ~lsb(j))
+                sum += tree[i * stride + j];
+        return sum;
+    }
+
+    // Returns the sum of the rectangle [r1, r2] x [c1, c2], one based
+    public long sum(int r1, int c1, int r2, int c2) {
+        cellInBoundsOrThrow(r1, c1);
+        cellInBoundsOrThrow(r2, c2);
+        if (r2 < r1 || c2 < c1) throw new IllegalArgumentException("Make sure r2 >= r1 and c2 >= c1");
+        return prefixSumUnchecked(r2, c2) - prefixSumUnchecked(r1 - 1, c2)
+             - prefixSumUnchecked(r2, c1 - 1) + prefixSumUnchecked(r1 - 1, c1 - 1);
+    }
+
+    private void cellInBoundsOrThrow(int r, int c) {
+        if (r < 1 || r > rows || c < 1 || c > cols)
+            throw new IllegalArgumentException("Cell out of bounds; received: (" + r + ", " + c + ")");
+    }
+}
@@ -0,0 +1,128 @@
+package com.tirkishovkadyr.datastructure;
+
+/**
+ * An N dimensional Fenwick Tree implementation which supports
+ * point updates and box sum queries
+ *
+ * It generalizes FenwickTree2D: a cell covers the range (i - lsb(i), i]
+ * along every dimension, so updates and prefix sums take O(log(n)^d)
+ * steps in d dimensions, and the sum of a box adds up the prefix sums of
+ * its 2^d corners with alternating signs. The tree is one flat long[] in
+ * row major order.
+ */
+
+import java.util.Arrays;
+
+public class FenwickTreeND {
+
+    // The size of every dimension, and the distance in 'tree' between two
+    // consecutive indexes of every dimension
+    private final int[] dims, strides;
+
+    // This array contains the Fenwick tree boxes, one based
+    private final long[] tree;
+
+    // Create an empty Fenwick tree with the given dimension sizes
+    public FenwickTreeND(int... dims) {
+        if (dims.length == 0) throw new IllegalArgumentException("At least one dimension is required");
+        this.dims = dims.clone();
+        strides = new int[dims.length];
+
+        long cells = 1;
+        for (int t = dims.length - 1; t >= 0; t--) {
+            if (dims[t] < 0) throw new IllegalArgumentException("Illegal dimensions: " + Arrays.toString(dims));
+            strides[t] = (int) cells;
+            cells *= dims[t] + 1;
+            if (cells > Integer.MAX_VALUE - 8) throw new IllegalArgumentException("Too many cells: " + Arrays.toString(dims));
+        }
+        tree = new long[(int) cells];
+    }
+
+    private int lsb(int i) {
+        return i & -i;
+    }
+
+    public int dimensions() {
+        return dims.length;
+    }
+
+    // Returns the size of dimension t
+    public int size(int t) {
+        return dims[t];
+    }
+
+    // Add 'k' to the cell at 'index', one based
+    public void add(int[] index, long k) {
+        indexInBoundsOrThrow(index);
+        add(0, 0, index, k);
+    }
+
+    private void add(int t, int offset, int[] index, long k) {
+        boolean last = t == dims.length - 1;
+        for (int i = index[t]; i <= dims[t]; i += lsb(i)) {
+            if (last) tree[offset + i] += k;
+            else add(t + 1, offset + i * strides[t], index, k);
+        }
+    }
+
+    // Set the cell at 'index' to be equal to k, one based
+    public void set(int[] index, long k) {
+        add(index, k - get(index));
+    }
+
+    // Returns the value of the cell at 'index', one based
+    public long get(int[] index) {
+        return sum(index, index);
+    }
+
+    // Computes the sum of the box [1, index[0]] x ... x [1, index[d - 1]], one based
+    public long prefixSum(int... index) {
+        if (index.length != dims.length) throw new IllegalArgumentException("Expected " + dims.length + " indexes");
+        for (int t = 0; t < dims.length; t++)
+            if (index[t] < 0 || index[t] > dims[t])
+                throw new IllegalArgumentException("Index out of bounds; received: " + Arrays.toString(index));
+        return prefixSum(0, 0, index);
+    }
+
+    private long prefixSum(int t, int offset, int[] index) {
+        boolean last = t == dims.length - 1;
+        long sum = 0L;
+        for (int i = index[t]; i != 0; i &= ~lsb(i)) {
+            if (last) sum += tree[offset + i];
+            else sum += prefixSum(t + 1, offset + i * strides[t], index);
+        }
+        return sum;
+    }
+
+    // Returns the sum of the box [lo[0], hi[0]] x ... x [lo[d - 1], hi[d - 1]], one based
+    public long sum(int[] lo, int[] hi) {
+        indexInBoundsOrThrow(lo);
+        indexInBoundsOrThrow(hi);
+        for (int t = 0; t < dims.length; t++)
+            if (hi[t] < lo[t]) throw new IllegalArgumentException("Make sure hi >= lo");
+
+        // Inclusion-exclusion over the corners of the box: a corner takes
+        // lo[t] - 1 in the dimensions of the set bits and hi[t] otherwise
+        int d = dims.length;
+        int[] corner = new int[d];
+        long sum = 0L;
+        for (int mask = 0; mask < 1 << d; mask++) {
+            boolean empty = false;
+            for (int t = 0; t < d; t++) {
+                corner[t] = (mask & (1 << t)) != 0 ? lo[t] - 1 : hi[t];
+                if (corner[t] == 0) empty = true;
+            }
+            if (empty) continue;
+            long s = prefixSum(0, 0, corner);
+            sum += (Integer.bitCount(mask) & 1) == 0 ? s : -s;
+        }
+        return sum;
+    }
+
+    private void indexInBoundsOrThrow(int[] index) {
+        if (index.length != dims.length) throw new IllegalArgumentException("Expected " + dims.length + " indexes");
+        for (int t = 0; t < dims.length; t++)
+            if (index[t] < 1 || index[t] > dims[t])
+                throw new IllegalArgumentException("Index out of bounds; received: " + Arrays.toString(index));
+    }
+}
@@ -0,0 +1,251 @@
+package com.tirkishovkadyr.datastructure;
+
+/*
+ * A min Fibonacci heap, mainly kept for comparison with PairingHeap.
+ *
+ * The heap is a circular list of heap ordered trees with a pointer to the
+ * smallest root. 'add' and 'meld' just splice root lists together and are
+ * O(1). 'poll' moves the children of the minimum to the root list and then
+ * consolidates it, linking roots of equal degree until all degrees differ,
+ * O(log(n)) amortized. 'decreaseKey' cuts the node to the root list and, via
+ * cascading cuts, every ancestor which already lost a child, O(1) amortized.
+ *
+ * Its bounds are better than the pairing heap's in theory, but it keeps four
+ * pointers, a degree and a mark per node, and in practice a pairing heap is
+ * usually faster.
+ *
+ * As with PairingHeap, 'add' returns a handle for 'decreaseKey' which is
+ * valid until the element leaves the heap or the heap is cleared, and which
+ * only the heap holding the element accepts.
+ */
+
+import java.util.NoSuchElementException;
+
+public class FibonacciHeap <T extends Comparable<T>> {
+
+    // A token standing for the heap a node belongs to. 'meld' forwards the
+    // other heap's token to this heap's and 'clear' replaces the token, so
+    // the handles of a cleared heap stop resolving to any heap
+    private static final class Owner {
+        private Owner forward;
+    }
+
+    public static final class Node<T> {
+        private T value;
+        private Node<T> parent, child, left, right;
+        private int degree;
+        private boolean mark;
+
+        // Null once the node has left the heap
+        private Owner owner;
+
+        private Node(T value) {
+            this.value = value;
+            left = right = this;
+        }
+
+        public T value() {
+            return value;
+        }
+    }
+
+    // The root with the smallest value, null if the heap is empty
+    private Node<T> min;
+    private int size = 0;
+    private Owner owner = new Owner();
+
+    // Roots indexed by degree, reused by every 'poll'. The degree of a node
+    // is O(log_phi(n)), so 64 slots are enough for any int size
+    @SuppressWarnings("unchecked")
+    private final Node<T>[] byDegree = (Node<T>[]) new Node<?>[64];
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Clears the heap, all handles become invalid, O(1)
+    public void clear() {
+        min = null;
+        size = 0;
+        owner = new Owner();
+    }
+
+    // Returns the smallest element, null if the heap is empty, O(1)
+    public T peek() {
+        return isEmpty() ? null : min.value;
+    }
+
+    // Adds an element and returns its handle, the element must not be null, O(1)
+    public Node<T> add(T elem) {
+        if (elem == null) throw new IllegalArgumentException();
+        Node<T> node = new Node<>(elem);
+        node.owner = owner;
+        min = mergeLists(min, node);
+        size++;
+        return node;
+    }
+
+    // Removes and returns the smallest element, O(log(n)) amortized
+    public T poll() {
+        if (isEmpty()) return null;
+        Node<T> z = min;
+
+        // Move the children of the minimum to the root list
+        Node<T> child = z.child;
+        if (child != null) {
+            Node<T> c = child;
+            do {
+                c.parent = null;
+                c = c.right;
+            } while (c != child);
+            mergeLists(z, child);
+            z.child = null;
+        }
+
+        // Remove the minimum from the root list
+        Node<T> rest = z.right == z ? null : z.right;
+        unlink(z);
+        size--;
+        z.owner = null;
+
+        min = rest;
+        if (rest != null) consolidate();
+        return z.value;
+    }
+
+    // Tests if the handle's element is in this heap, O(1) unless the handle
+    // went through melds, O(log(m)) amortized over m melds
+    public boolean contains(Node<T> node) {
+        return node != null && node.owner != null && ownerOf(node) == owner;
+    }
+
+    // Lowers the value of the handle's element, O(1) amortized
+    public void decreaseKey(Node<T> node, T value) {
+        if (!contains(node)) throw new NoSuchElementException("Node is not in the heap");
+        if (value == null) throw new IllegalArgumentException();
+        if (value.compareTo(node.value) > 0)
+            throw new IllegalArgumentException("New value " + value + " is greater than " + node.value);
+
+        node.value = value;
+        Node<T> parent = node.parent;
+        if (parent != null && value.compareTo(parent.value) < 0) {
+            cut(node, parent);
+            cascadingCut(parent);
+        }
+        if (value.compareTo(min.value) < 0) min = node;
+    }
+
+    // Moves all the elements of the other heap into this one and leaves the
+    // other heap empty, O(1)
+    public void meld(FibonacciHeap<T> other) {
+        if (other == this) return;
+        min = mergeLists(min, other.min);
+        size += other.size;
+        other.owner.forward = owner;
+        other.clear();
+    }
+
+    // Splices two circular lists together and returns the node with the
+    // smaller value, either list may be null, O(1)
+    private Node<T> mergeLists(Node<T> a, Node<T> b) {
+        if (a == null) return b;
+        if (b == null) return a;
+        Node<T> aRight = a.right;
+        a.right = b.right;
+        a.right.left = a;
+        b.right = aRight;
+        aRight.left = b;
+        return b.value.compareTo(a.value) < 0 ? b : a;
+    }
+
+    // Removes a node from its circular list, leaving it a list of its own
+    private void unlink(Node<T> node) {
+        node.left.right = node.right;
+        node.right.left = node.left;
+        node.left = node.right = node;
+    }
+
+    // Links the roots until no two have the same degree and finds the new minimum
+    private void consolidate() {
+        int roots = 0;
+        Node<T> r = min;
+        do {
+            roots++;
+            r = r.right;
+        } while (r != min);
+
+        int maxDegree = 0;
+        Node<T> next = min;
+        for (int i = 0; i < roots; i++) {
+            Node<T> x = next;
+            next = next.right;
+            unlink(x);
+
+            int d = x.degree;
+            while (byDegree[d] != null) {
+                Node<T> y = byDegree[d];
+                byDegree[d++] = null;
+                if (y.value.compareTo(x.value) < 0) {
+                    Node<T> tmp = x;
+                    x = y;
+                    y = tmp;
+                }
+                // Make y a child of x
+                y.parent = x;
+                y.mark = false;
+                if (x.child == null) x.child = y;
+                else mergeLists(x.child, y);
+                x.degree++;
+            }
+            byDegree[d] = x;
+            maxDegree = Math.max(maxDegree, d);
+        }
+
+        // Rebuild the root list from the slots
+        min = null;
+        for (int d = 0; d <= maxDegree; d++) {
+            if (byDegree[d] != null) {
+                min = mergeLists(min, byDegree[d]);
+                byDegree[d] = null;
+            }
+        }
+    }
+
+    // Moves a node from its parent's child list to the root list
+    private void cut(Node<T> node, Node<T> parent) {
+        if (parent.child == node) parent.child = node.right == node ? null : node.right;
+        unlink(node);
+        parent.degree--;
+        node.parent = null;
+        node.mark = false;
+        mergeLists(min, node);
+    }
+
+    // Cuts the ancestors which already lost a child and marks the first one
+    // which did not
+    private void cascadingCut(Node<T> node) {
+        for (Node<T> parent = node.parent; parent != null; node = parent, parent = node.parent) {
+            if (!node.mark) {
+                node.mark = true;
+                return;
+            }
+            cut(node, parent);
+        }
+    }
+
+    // Follows the forward links left by 'meld' to the token of the heap which
+    // owns the node, halving the path on the way
+    private static Owner ownerOf(Node<?> node) {
+        Owner o = node.owner;
+        while (o.forward != null) {
+            if (o.forward.forward != null) o.forward = o.forward.forward;
+            o = o.forward;
+        }
+        node.owner = o;
+        return o;
+    }
+}
@@ -0,0 +1,236 @@
+package com.tirkishovkadyr.datastructure;
+
+/*
+ * A min priority queue implementation using a binary heap, where adding an
+ * element returns an int handle which can later be used to remove the element
+ * or change its value in O(log(n)).
+ *
+ * Unlike PQueue, positions are not tracked with a map of values to index sets
+ * but with two plain int arrays: 'heap' lists the handles in heap order and
+ * 'pos' maps every handle back to its position in 'heap'. A swap updates two
+ * array cells and nothing is allocated per operation.
+ *
+ * A handle stays valid until its element leaves the queue, after which it may
+ * be handed out again for a new element.
+ */
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+@SuppressWarnings("unchecked")
+public class HandlePQueue <T extends Comparable<T>> {
+
+    // The number of elements currently inside the heap
+    private int heapSize = 0;
+
+    // The handles of the elements in heap order
+    private int[] heap;
+
+    // The position of every handle in 'heap', -1 for handles not in use
+    private int[] pos;
+
+    // The element of every handle
+    private Object[] values;
+
+    // Released handles to be reused, and the number of handles ever handed out
+    private int[] free;
+    private int freeCount = 0, handleCount = 0;
+
+    // Construct and initially empty priority queue
+    public HandlePQueue() { this(1); }
+
+    // Construct a priority queue with an initial capacity
+    public HandlePQueue(int sz) {
+        int capacity = Math.max(1, sz);
+        heap = new int[capacity];
+        pos = new int[capacity];
+        values = new Object[capacity];
+        free = new int[capacity];
+    }
+
+    // Return true/false depending on if the priority queue is empty
+    public boolean isEmpty() {
+        return heapSize == 0;
+    }
+
+    // Returns the size of the heap
+    public int size() {
+        return heapSize;
+    }
+
+    // Clears everything inside the heap, all handles become invalid, O(n)
+    public void clear() {
+        Arrays.fill(values, 0, handleCount, null);
+        heapSize = freeCount = handleCount = 0;
+    }
+
+    // Adds an element to the priority queue and returns its handle, the
+    // element must not be null, O(log(n))
+    public int add(T elem) {
+
+        if (elem == null) throw new IllegalArgumentException();
+
+        int handle;
+        if (freeCount > 0) {
+            handle = free[--freeCount];
+        } else {
+            if (handleCount == values.length) grow();
+            handle = handleCount++;
+        }
+
+        values[handle] = elem;
+        heap[heapSize] = handle;
+        pos[handle] = heapSize;
+        swim(heapSize++);
+        return handle;
+    }
+
+    // Returns the value of the element with the lowest priority
+    // in this priority queue, null if the queue is empty
+    public T peek() {
+        if (isEmpty()) return null;
+        return (T) values[heap[0]];
+    }
+
+    // Returns the handle of the element with the lowest priority
+    public int peekHandle() {
+        if (isEmpty()) throw new NoSuchElementException("Priority queue underflow");
+        return heap[0];
+    }
+
+    // Removes the root of the heap, O(log(n))
+    public T poll() {
+        if (isEmpty()) return null;
+        return removeAt(0);
+    }
+
+    // Tests if the handle refers to an element in the heap, O(1)
+    public boolean contains(int handle) {
+        return handle >= 0 && handle < handleCount && pos[handle] != -1;
+    }
+
+    // Returns the element of the handle, O(1)
+    public T valueOf(int handle) {
+        handleInUseOrThrow(handle);
+        return (T) values[handle];
+    }
+
+    // Removes the element of the handle and returns it, O(log(n))
+    public T remove(int handle) {
+        handleInUseOrThrow(handle);
+        return removeAt(pos[handle]);
+    }
+
+    // Replaces the element of the handle and restores the heap
+    // invariant, returns the previous element, O(log(n))
+    public T update(int handle, T elem) {
+        handleInUseOrThrow(handle);
+        if (elem == null) throw new IllegalArgumentException();
+
+        T oldElem = (T) values[handle];
+        values[handle] = elem;
+        int i = pos[handle];
+        if (elem.compareTo(oldElem) < 0) swim(i);
+        else sink(i);
+        return oldElem;
+    }
+
+    // Tests if the value of node i <= j
+    // This method assumes i & j are valid indices, O(1)
+    private boolean less(int i, int j) {
+        T node1 = (T) values[heap[i]];
+        T node2 = (T) values[heap[j]];
+        return node1.compareTo(node2) <= 0;
+    }
+
+    // Bottom up node swim, O(log(n))
+    private void swim(int k) {
+        int parent = (k - 1) / 2;
+        while (k > 0 && less(k, parent)) {
+            swap(parent, k);
+            k = parent;
+            parent = (k - 1) / 2;
+        }
+    }
+
+    // Top down node sink, O(log(n))
+    private void sink(int k) {
+        while (true) {
+            int left = 2 * k + 1;
+            int right = 2 * k + 2;
+            int smallest = left;
+
+            if (right < heapSize && less(right, left)) smallest = right;
+            if (left >= heapSize || less(k, smallest)) break;
+
+            swap(smallest, k);
+            k = smallest;
+        }
+    }
+
+    // Swap two nodes and their positions. Assumes i & j are valid, O(1)
+    private void swap(int i, int j) {
+        int hi = heap[i], hj = heap[j];
+        heap[i] = hj;
+        heap[j] = hi;
+        pos[hj] = i;
+        pos[hi] = j;
+    }
+
+    // Removes a node at particular index and releases its handle, O(log(n))
+    private T removeAt(int i) {
+        int handle = heap[i];
+        T removedData = (T) values[handle];
+
+        swap(i, --heapSize);
+        values[handle] = null;
+        pos[handle] = -1;
+        free[freeCount++] = handle;
+
+        // Removed last element
+        if (i == heapSize) return removedData;
+
+        // Either sinking or swimming restores the invariant
+        int moved = heap[i];
+        sink(i);
+        if (heap[i] == moved) swim(i);
+
+        return removedData;
+    }
+
+    // Doubles the capacity of all the arrays
+    private void grow() {
+        int capacity = values.length * 2;
+        heap = Arrays.copyOf(heap, capacity);
+        pos = Arrays.copyOf(pos, capacity);
+        values = Arrays.copyOf(values, capacity);
+        free = Arrays.copyOf(free, capacity);
+    }
+
+    private void handleInUseOrThrow(int handle) {
+        if (!contains(handle)) throw new NoSuchElementException("Handle not in the queue; received: " + handle);
+    }
+
+    // Recursively checks if this heap is a min heap. This method is just for
+    // testing purposes to make sure the heap invariant is still being maintained
+    public boolean isMinHeap(int k) {
+        if (k >= heapSize) return true;
+
+        int left = 2 * k + 1;
+        int right = 2 * k + 2;
+
+        if (left < heapSize && !less(k, left)) return false;
+        if (right < heapSize && !less(k, right)) return false;
+
+        return isMinHeap(left) && isMinHeap(right);
+    }
+
+    @Override public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < heapSize; i++) {
+            if (i > 0) sb.append(", ");
+            sb.append(values[heap[i]]);
+        }
+        return sb.append("]").toString();
+    }
+}
@@ -0,0 +1,43 @@
+package com.tirkishovkadyr.datastructure;
+
+/*
+ * Turns a key into the hash used by the hash-tables to pick a bucket.
+ *
+ * The tables index with the low bits of the hash only (their capacity is a
+ * power of two), so a strategy should spread all the bits of the hash code
+ * over the low bits. IDENTITY does not and is only suitable for keys whose
+ * hash codes are already well distributed. MURMUR mixes the hash code with
+ * the MurmurHash3 finalizer. A seeded strategy additionally xors a secret
+ * seed in before mixing, so that the bucket of a key cannot be predicted
+ * from the outside.
+ */
+
+import java.util.concurrent.ThreadLocalRandom;
+
+@FunctionalInterface
+public interface HashStrategy {
+
+    int hash(Object key);
+
+    HashStrategy IDENTITY = Object::hashCode;
+
+    HashStrategy MURMUR = key -> fmix32(key.hashCode());
+
+    static HashStrategy seeded(int seed) {
+        return key -> fmix32(key.hashCode() ^ seed);
+    }
+
+    static HashStrategy randomized() {
+        return seeded(ThreadLocalRandom.current().nextInt());
+    }
+
+    // The finalizer of MurmurHash3, every input bit affects every output bit
+    static int fmix32(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+}
@@ -0,0 +1,416 @@
+package com.tirkishovkadyr.datastructure;
+
+/*
+  An implementation of a hash-table using bucketized cuckoo hashing.
+
+  Every key has two candidate buckets, one per hash function, and each
+  bucket holds SLOTS entries. A key is always stored in one of its two
+  buckets (or in a small stash), so a lookup inspects at most 2 * SLOTS
+  slots no matter how full the table is. The full hash of every entry is
+  kept next to it so that mismatching slots are rejected without touching
+  the keys themselves.
+
+  When both buckets of a new key are full a random entry is kicked out to
+  its alternative bucket, which may kick out another entry and so on. If
+  this does not settle within MAX_KICKS moves the homeless entry is put in
+  the stash, and once the stash is full the table is rehashed with new
+  hash functions.
+ */
+
+import java.util.*;
+
+@SuppressWarnings("unchecked")
+public class HashTableCuckoo<K, V> implements Iterable<K> {
+
+    // The number of slots per bucket
+    private static final int SLOTS = 4;
+
+    // The number of displacements tried before an insertion falls back on the stash
+    private static final int MAX_KICKS = 128;
+
+    // The number of entries the stash holds before the table is rehashed
+    private static final int STASH_SIZE = 4;
+
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final double DEFAULT_LOAD_FACTOR = 0.9;
+
+    private final double loadFactor;
+
+    // 'bucketCount' is always a power of two and 'capacity' is the number of slots
+    private int bucketCount, capacity, threshold, keyCount = 0, modificationCount = 0;
+
+    // The seeds of the two hash functions, they change on every rehash
+    private int seed1, seed2;
+
+    // State of the xorshift generator which picks the entries to kick out
+    private int random;
+
+    // These arrays store the key-value pairs and the hash code of each key.
+    // A slot is empty if its key is null
+    private K[] keyTable;
+    private V[] valueTable;
+    private int[] hashTable;
+
+    // Overflow area for the entries that could not be placed in their buckets
+    private K[] stashKeys;
+    private V[] stashValues;
+    private int stashCount = 0;
+
+    // The entry left without a slot after an unsuccessful chain of kicks
+    private K homelessKey;
+    private V homelessValue;
+
+    public HashTableCuckoo() {
+        this(DEFAULT_CAPACITY, DEFAULT_LOAD_FACTOR);
+    }
+
+    public HashTableCuckoo(int capacity) {
+        this(capacity, DEFAULT_LOAD_FACTOR);
+    }
+
+    // Designated constructor. The load factor may not exceed one, in practice
+    // four slot buckets reliably fill up to about 95% of the slots
+    public HashTableCuckoo(int capacity, double loadFactor) {
+
+        if (capacity <= 0)
+            throw new IllegalArgumentException("Illegal capacity: " + capacity);
+
+        if (loadFactor <= 0 || loadFactor > 1 || Double.isNaN(loadFactor))
+            throw new IllegalArgumentException("Illegal loadFactor: " + loadFactor);
+
+        this.loadFactor = loadFactor;
+        random = (int) System.nanoTime() | 1;
+        allocate(Math.max(DEFAULT_CAPACITY, capacity) / SLOTS);
+        stashKeys = (K[]) new Object[STASH_SIZE];
+        stashValues = (V[]) new Object[STASH_SIZE];
+    }
+
+    // Allocates empty tables with at least the given number of buckets
+    // and picks two new hash functions
+    private void allocate(int minBuckets) {
+        bucketCount = Integer.highestOneBit(Math.max(2, minBuckets - 1)) << 1;
+        capacity = bucketCount * SLOTS;
+        threshold = (int) (capacity * loadFactor);
+        keyTable = (K[]) new Object[capacity];
+        valueTable = (V[]) new Object[capacity];
+        hashTable = new int[capacity];
+        seed1 = nextRandom();
+        seed2 = nextRandom();
+    }
+
+    // Xorshift random number generator
+    private int nextRandom() {
+        random ^= random << 13;
+        random ^= random >>> 17;
+        random ^= random << 5;
+        return random;
+    }
+
+    // The finalizer of MurmurHash3, it spreads every input bit over the whole output
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    // The index of the first slot of the buckets given by each hash function
+    private int bucket1(int hash) {
+        return (mix(hash ^ seed1) & (bucketCount - 1)) * SLOTS;
+    }
+
+    private int bucket2(int hash) {
+        return (mix(hash ^ seed2) & (bucketCount - 1)) * SLOTS;
+    }
+
+    // Clears all the contents of the hash-table
+    public void clear() {
+        Arrays.fill(keyTable, null);
+        Arrays.fill(valueTable, null);
+        Arrays.fill(stashKeys, null);
+        Arrays.fill(stashValues, null);
+        keyCount = stashCount = 0;
+        modificationCount++;
+    }
+
+    // Returns the number of keys currently inside the hash-table
+    public int size() {
+        return keyCount;
+    }
+
+    // Returns true/false depending on whether the hash-table is empty
+    public boolean isEmpty() {
+        return keyCount == 0;
+    }
+
+    // Insert, put and add all place a value in the hash-table
+    public V put(K key, V value) {
+        return insert(key, value);
+    }
+
+    public V add(K key, V value) {
+        return insert(key, value);
+    }
+
+    // Place a key value pair into the hash-table. If the value already
+    // exists inside the hash-table then the value is updated
+    public V insert(K key, V value) {
+
+        if (key == null) throw new IllegalArgumentException("Null key");
+
+        final int hash = key.hashCode();
+        int i = slotOf(key, hash);
+        if (i >= 0) {
+            V oldValue = valueTable[i];
+            valueTable[i] = value;
+            modificationCount++;
+            return oldValue;
+        }
+        i = stashSlotOf(key);
+        if (i >= 0) {
+            V oldValue = stashValues[i];
+            stashValues[i] = value;
+            modificationCount++;
+            return oldValue;
+        }
+
+        if (keyCount >= threshold) rehash(bucketCount * 2);
+
+        keyCount++;
+        modificationCount++;
+        if (!place(key, value, hash)) {
+
+            // The stash is full, so find better hash functions, then settle the homeless entry.
+            // The table is only grown if it is reasonably full, otherwise new seeds suffice
+            if (stashCount >= STASH_SIZE) {
+                K k = homelessKey;
+                V v = homelessValue;
+                rehash(keyCount >= threshold / 2 ? bucketCount * 2 : bucketCount);
+                if (!place(k, v, k.hashCode())) stash(homelessKey, homelessValue);
+            } else {
+                stash(homelessKey, homelessValue);
+            }
+        }
+        homelessKey = null;
+        homelessValue = null;
+        return null;
+    }
+
+    // Tries to store a key which is not in the table yet in one of its buckets, kicking
+    // out other entries if needed. Returns false if some entry is left without a slot,
+    // in which case that entry is stored in 'homelessKey' and 'homelessValue'
+    private boolean place(K key, V value, int hash) {
+        int b = bucket1(hash);
+        if (placeInBucket(b, key, value, hash)) return true;
+        int alt = bucket2(hash);
+        if (placeInBucket(alt, key, value, hash)) return true;
+
+        for (int kicks = 0; kicks < MAX_KICKS; kicks++) {
+
+            // Swap the entry with a random victim of the bucket
+            int victim = b + (nextRandom() & (SLOTS - 1));
+            K k = keyTable[victim];
+            V v = valueTable[victim];
+            int h = hashTable[victim];
+            keyTable[victim] = key;
+            valueTable[victim] = value;
+            hashTable[victim] = hash;
+            key = k;
+            value = v;
+            hash = h;
+
+            // Move the victim to its other bucket
+            int b1 = bucket1(hash);
+            b = (b1 == b) ? bucket2(hash) : b1;
+            if (placeInBucket(b, key, value, hash)) return true;
+        }
+
+        homelessKey = key;
+        homelessValue = value;
+        return false;
+    }
+
+    // Places the entry in a free slot of the bucket starting at index b, if there is one
+    private boolean placeInBucket(int b, K key, V value, int hash) {
+        for (int i = b; i < b + SLOTS; i++) {
+            if (keyTable[i] == null) {
+                keyTable[i] = key;
+                valueTable[i] = value;
+                hashTable[i] = hash;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Appends an entry to the stash. The stash only grows beyond STASH_SIZE if
+    // more keys share the same hash code than fit into their two buckets
+    private void stash(K key, V value) {
+        if (stashCount == stashKeys.length) {
+            stashKeys = Arrays.copyOf(stashKeys, stashCount * 2);
+            stashValues = Arrays.copyOf(stashValues, stashCount * 2);
+        }
+        stashKeys[stashCount] = key;
+        stashValues[stashCount++] = value;
+    }
+
+    // Rebuilds the table with new hash functions and the given number of buckets
+    private void rehash(int newBucketCount) {
+
+        K[] oldKeyTable = keyTable;
+        V[] oldValueTable = valueTable;
+        int[] oldHashTable = hashTable;
+        K[] oldStashKeys = stashKeys;
+        V[] oldStashValues = stashValues;
+        int oldStashCount = stashCount;
+
+        allocate(newBucketCount);
+        stashKeys = (K[]) new Object[Math.max(STASH_SIZE, oldStashCount)];
+        stashValues = (V[]) new Object[stashKeys.length];
+        stashCount = 0;
+
+        for (int i = 0; i < oldKeyTable.length; i++)
+            if (oldKeyTable[i] != null && !place(oldKeyTable[i], oldValueTable[i], oldHashTable[i]))
+                stash(homelessKey, homelessValue);
+
+        for (int i = 0; i < oldStashCount; i++)
+            if (!place(oldStashKeys[i], oldStashValues[i], oldStashKeys[i].hashCode()))
+                stash(homelessKey, homelessValue);
+    }
+
+    // Returns the slot index of the key in its two buckets or -1 if it is not there
+    private int slotOf(K key, int hash) {
+        int b = bucket1(hash);
+        for (int i = b; i < b + SLOTS; i++)
+            if (hashTable[i] == hash && keyTable[i] != null && keyTable[i].equals(key)) return i;
+        b = bucket2(hash);
+        for (int i = b; i < b + SLOTS; i++)
+            if (hashTable[i] == hash && keyTable[i] != null && keyTable[i].equals(key)) return i;
+        return -1;
+    }
+
+    // Returns the index of the key in the stash or -1 if it is not there
+    private int stashSlotOf(K key) {
+        for (int i = 0; i < stashCount; i++)
+            if (stashKeys[i].equals(key)) return i;
+        return -1;
+    }
+
+    // Returns true/false on whether a given key exists within the hash-table
+    public boolean containsKey(K key) {
+        return hasKey(key);
+    }
+
+    // Returns true/false on whether a given key exists within the hash-table
+    public boolean hasKey(K key) {
+        if (key == null) throw new IllegalArgumentException("Null key");
+        return slotOf(key, key.hashCode()) >= 0 || stashSlotOf(key) >= 0;
+    }
+
+    // Get the value associated with the input key.
+    // NOTE: returns null if the value is null AND also returns
+    // null if the key does not exists
+    public V get(K key) {
+        if (key == null) throw new IllegalArgumentException("Null key");
+        int i = slotOf(key, key.hashCode());
+        if (i >= 0) return valueTable[i];
+        if (stashCount == 0) return null;
+        i = stashSlotOf(key);
+        return i >= 0 ? stashValues[i] : null;
+    }
+
+    // Removes a key from the map and returns the value.
+    // NOTE: returns null if the value is null AND also returns
+    // null if the key does not exist.
+    public V remove(K key) {
+        if (key == null) throw new IllegalArgumentException("Null key");
+
+        V oldValue;
+        int i = slotOf(key, key.hashCode());
+        if (i >= 0) {
+            oldValue = valueTable[i];
+            keyTable[i] = null;
+            valueTable[i] = null;
+        } else {
+            i = stashSlotOf(key);
+            if (i < 0) return null;
+
+            // Fill the gap with the last stashed entry
+            oldValue = stashValues[i];
+            stashKeys[i] = stashKeys[--stashCount];
+            stashValues[i] = stashValues[stashCount];
+            stashKeys[stashCount] = null;
+            stashValues[stashCount] = null;
+        }
+
+        keyCount--;
+        modificationCount++;
+        return oldValue;
+    }
+
+    // Returns a list of the keys found in the hash table
+    public List<K> keys() {
+        List<K> keys = new ArrayList<>(size());
+        for (int i = 0; i < capacity; i++)
+            if (keyTable[i] != null) keys.add(keyTable[i]);
+        for (int i = 0; i < stashCount; i++) keys.add(stashKeys[i]);
+        return keys;
+    }
+
+    // Returns a list of non-unique values found in the hash-table
+    public List<V> values() {
+        List<V> values = new ArrayList<>(size());
+        for (int i = 0; i < capacity; i++)
+            if (keyTable[i] != null) values.add(valueTable[i]);
+        for (int i = 0; i < stashCount; i++) values.add(stashValues[i]);
+        return values;
+    }
+
+    // Return a String view of this hash-table.
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+
+        sb.append("{");
+        for (int i = 0; i < capacity; i++)
+            if (keyTable[i] != null) sb.append(keyTable[i] + " => " + valueTable[i] + ", ");
+        for (int i = 0; i < stashCount; i++)
+            sb.append(stashKeys[i] + " => " + stashValues[i] + ", ");
+        sb.append("}");
+
+        return sb.toString();
+    }
+
+    @Override
+    public Iterator<K> iterator() {
+        final int MODIFICATION_COUNT = modificationCount;
+
+        return new Iterator<K>() {
+            int index, keysLeft = keyCount;
+
+            @Override
+            public boolean hasNext() {
+                // The contents of the table have been altered
+                if (MODIFICATION_COUNT != modificationCount) throw new ConcurrentModificationException();
+                return keysLeft != 0;
+            }
+
+            // Walk the slots first and the stash after them
+            @Override
+            public K next() {
+                if (keysLeft == 0) throw new NoSuchElementException();
+                keysLeft--;
+                while (index < capacity && keyTable[index] == null) index++;
+                if (index < capacity) return keyTable[index++];
+                return stashKeys[index++ - capacity];
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+}
@@ -13,23 +13,45 @@ package com.tirkishovkadyr.datastructure;
   in the range [0, 2^n) without repetition for the first 2^n numbers).
  */
 
+import java.io.*;
 import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 
 @ SuppressWarnings("unchecked")
 public class HashTableQuadraticProbing <K,V> implements Iterable <K> {
 
-    private double loadFactor;
-    private int capacity, threshold, modificationCount = 0;
+    private double loadFactor, minLoadFactor;
+    private int capacity, threshold, minThreshold, modificationCount = 0;
 
     // 'usedBuckets' counts the total number of used buckets inside the
     // hash-table (includes cells marked as deleted). While 'keyCount'
     // tracks the number of unique keyTable currently inside the hash-table
     private int usedBuckets = 0, keyCount = 0;
 
+    // The capacity the table was created with. Removals never shrink the
+    // table below it, so a pre-sized table keeps the room it was given
+    private final int minCapacity;
+
     // These arrays store the key-value pairs
     private K[] keyTable;
     private V[] valueTable;
 
+    // Maps the keys to the hashes the slots are derived from
+    private final HashStrategy hashStrategy;
+
+    // Optional filter in front of the table which answers most lookups of absent
+    // keys without probing. It is rebuilt, at the requested false positive rate,
+    // whenever the table is resized. Removed keys stay in it until then
+    private BlockedBloomFilter<K> bloomFilter;
+    private double bloomFalsePositiveRate;
+
+    // The keys added to the filter since it was built and the number it was sized
+    // for. Inserts into deleted buckets do not use up buckets, so under put/remove
+    // churn only this count tells when the filter is full and must be rebuilt
+    private int bloomInserts, bloomCapacity;
+
     // Flag used to indicate whether an item was found in the hash-table
     private boolean containsFlag = false;
 
@@ -39,6 +61,10 @@ public class HashTableQuadraticProbing <K,V> implements Iterable <K> {
     private static final int DEFAULT_CAPACITY = 8;
     private static final double DEFAULT_LOAD_FACTOR = 0.45;
 
+    // Snapshot header and the markers written for each slot
+    private static final int SNAPSHOT_MAGIC = 0x48545150, SNAPSHOT_VERSION = 1;
+    private static final byte EMPTY_SLOT = 0, DELETED_SLOT = 1, USED_SLOT = 2;
+
     public HashTableQuadraticProbing() {
         this(DEFAULT_CAPACITY, DEFAULT_LOAD_FACTOR);
     }
@@ -47,8 +73,19 @@ public class HashTableQuadraticProbing <K,V> implements Iterable <K> {
         this(capacity, DEFAULT_LOAD_FACTOR);
     }
 
-    // Designated constructor
+    // By default the table shrinks once it drops below a quarter of the
+    // maximum load factor
     public HashTableQuadraticProbing(int capacity, double loadFactor) {
+        this(capacity, loadFactor, loadFactor / 4);
+    }
+
+    // A 'minLoadFactor' of zero disables shrinking
+    public HashTableQuadraticProbing(int capacity, double loadFactor, double minLoadFactor) {
+        this(capacity, loadFactor, minLoadFactor, HashStrategy.MURMUR);
+    }
+
+    // Designated constructor
+    public HashTableQuadraticProbing(int capacity, double loadFactor, double minLoadFactor, HashStrategy hashStrategy) {
 
         if (capacity <= 0)
             throw new IllegalArgumentException("Illegal capacity: " + capacity);
@@ -56,9 +93,21 @@ public class HashTableQuadraticProbing <K,V> implements Iterable <K> {
         if (loadFactor <= 0 || Double.isNaN(loadFactor) || Double.isInfinite(loadFactor))
             throw new IllegalArgumentException("Illegal loadFactor: " + loadFactor);
 
+        // Halving the table doubles its load, so keeping the minimum load factor at
+        // most a quarter of the maximum one leaves a shrunk table half full at worst.
+        // This gap is the hysteresis which stops the table from oscillating.
+        if (minLoadFactor < 0 || Double.isNaN(minLoadFactor) || minLoadFactor > loadFactor / 4)
+            throw new IllegalArgumentException("Illegal minLoadFactor: " + minLoadFactor);
+
+        if (hashStrategy == null)
+            throw new IllegalArgumentException("Null hashStrategy");
+
         this.loadFactor = loadFactor;
-        this.capacity = Math.max(DEFAULT_CAPACITY, next2Power(capacity));
+        this.minLoadFactor = minLoadFactor;
+        this.hashStrategy = hashStrategy;
+        this.capacity = minCapacity = Math.max(DEFAULT_CAPACITY, next2Power(capacity));
         threshold = (int) (this.capacity * loadFactor);
+        minThreshold = (int) (this.capacity * minLoadFactor);
 
         keyTable = (K[]) new Object[this.capacity];
         valueTable = (V[]) new Object[this.capacity];
@@ -75,10 +124,10 @@ public class HashTableQuadraticProbing <K,V> implements Iterable <K> {
         return (x * x + x) >> 1;
     }
 
-    // Converts a hash value to an index. Essentially, this strips the
-    // negative sign and places the hash value in the domain [0, capacity)
+    // Converts a hash value to an index in the domain [0, capacity). The
+    // capacity is a power of two so this only needs to mask the low bits
     private int normalizeIndex(int keyHash) {
-        return (keyHash & 0x7FFFFFFF) % capacity;
+        return keyHash & (capacity - 1);
     }
 
     // Clears all the contents of the hash-table
@@ -88,10 +137,56 @@ public class HashTableQuadraticProbing <K,V> implements Iterable <K> {
             valueTable[i] = null;
         }
 
-        keyCount = usedBuckets = 0;
+        keyCount = usedBuckets = bloomInserts = 0;
+        if (bloomFilter != null) bloomFilter.clear();
         modificationCount++;
     }
 
+    // Puts a Bloom filter with the given false positive rate in front of the table
+    public void enableBloomFilter(double falsePositiveRate) {
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1 || Double.isNaN(falsePositiveRate))
+            throw new IllegalArgumentException("Illegal falsePositiveRate: " + falsePositiveRate);
+        bloomFalsePositiveRate = falsePositiveRate;
+        rebuildBloomFilter();
+    }
+
+    public void disableBloomFilter() {
+        bloomFilter = null;
+        bloomFalsePositiveRate = 0;
+    }
+
+    // Sizes the filter for the number of keys the table holds before its next
+    // resize, with room for at least half as many more inserts, and adds all the
+    // keys currently in the table to it
+    private void rebuildBloomFilter() {
+        bloomCapacity = Math.max(threshold, keyCount + threshold / 2);
+        bloomFilter = new BlockedBloomFilter<>(bloomCapacity, bloomFalsePositiveRate);
+        bloomInserts = 0;
+        for (int i = 0; i < capacity; i++) {
+            if (keyTable[i] != null && keyTable[i] != TOMBSTONE) {
+                bloomFilter.add(keyTable[i]);
+                bloomInserts++;
+            }
+        }
+    }
+
+    // Adds a key just placed in the table to the filter. Once the filter holds
+    // as many keys as it was sized for it is rebuilt from the live keys instead,
+    // which drops the removed ones
+    private void addToBloomFilter(K key) {
+        if (bloomInserts >= bloomCapacity) {
+            rebuildBloomFilter();
+        } else {
+            bloomFilter.add(key);
+            bloomInserts++;
+        }
+    }
+
+    // True if the key is certainly not in the table
+    private boolean filteredOut(K key) {
+        return bloomFilter != null && !bloomFilter.mightContain(key);
+    }
+
     // Returns the number of the keyTable currently inside the hash-table
     public int size() {
         return keyCount;
@@ -116,9 +211,9 @@ public class HashTableQuadraticProbing <K,V> implements Iterable <K> {
     public V insert(K key, V val) {
 
         if (key == null) throw new IllegalArgumentException("Null key");
-        if (usedBuckets >= threshold) resizeTable();
+        resizeIfFull();
 
-        final int hash = normalizeIndex(key.hashCode());
+        final int hash = normalizeIndex(hashStrategy.hash(key));
         int i = hash, j = -1, x = 1;
 
         do {
@@ -159,6 +254,7 @@ public class HashTableQuadraticProbing <K,V> implements Iterable <K> {
                     keyCount++;
                     keyTable[i] = key;
                     valueTable[i] = val;
+                    if (bloomFilter != null) addToBloomFilter(key);
 
                     // Previously seen deleted bucket. Instead of inserting 
                     // the new element at 'i' where the null element is insert
@@ -167,6 +263,7 @@ public class HashTableQuadraticProbing <K,V> implements Iterable <K> {
                     keyCount++;
                     keyTable[j] = key;
                     valueTable[j] = val;
+                    if (bloomFilter != null) addToBloomFilter(key);
                 }
 
                 modificationCount++;
@@ -200,7 +297,11 @@ public class HashTableQuadraticProbing <K,V> implements Iterable <K> {
     public V get(K key) {
 
         if (key == null) throw new IllegalArgumentException("Null key");
-        final int hash = normalizeIndex(key.hashCode());
+        if (filteredOut(key)) {
+            containsFlag = false;
+            return null;
+        }
+        final int hash = normalizeIndex(hashStrategy.hash(key));
         int i = hash, j = -1, x = 1;
 
         // Starting at the original hash index quadratically probe until we find a spot here
@@ -235,7 +336,7 @@ public class HashTableQuadraticProbing <K,V> implements Iterable <K> {
                         keyTable[i] = TOMBSTONE;
                         valueTable[i] = null;
 
-                        return valueTable[i];
+                        return valueTable[j];
                     } else {
                         return valueTable[i];
                     }
@@ -259,8 +360,9 @@ public class HashTableQuadraticProbing <K,V> implements Iterable <K> {
     public V remove(K key) {
 
         if (key == null) throw new IllegalArgumentException("Null key");
+        if (filteredOut(key)) return null;
 
-        final int hash = normalizeIndex(key.hashCode());
+        final int hash = normalizeIndex(hashStrategy.hash(key));
         int i = hash, x = 1;
 
         // Starting at the hash index quadratically probe until we find a spot where
@@ -274,17 +376,181 @@ public class HashTableQuadraticProbing <K,V> implements Iterable <K> {
             if (keyTable[i] == null) return null;
 
             // The key we want to remove is in the hash-table!
-            if (keyTable[i].equals(key)) {
-                keyCount--;
-                modificationCount++;
-                V oldValue = valueTable[i];
-                keyTable[i] = TOMBSTONE;
-                valueTable[i] = null;
-                return oldValue;
-            }
+            if (keyTable[i].equals(key)) return removeSlot(i);
         }
     }
 
+    // Returns the value mapped to the key, or 'defaultValue' if the key does not exist
+    public V getOrDefault(K key, V defaultValue) {
+        if (key == null) throw new IllegalArgumentException("Null key");
+        if (filteredOut(key)) return defaultValue;
+        int i = findSlot(key);
+        return i >= 0 ? valueTable[i] : defaultValue;
+    }
+
+    // Places the key value pair in the hash-table unless the key is already
+    // mapped to a non null value, in which case that value is returned
+    public V putIfAbsent(K key, V value) {
+        if (key == null) throw new IllegalArgumentException("Null key");
+        resizeIfFull();
+
+        int i = findSlot(key);
+        if (i < 0) {
+            insertSlot(-i - 1, key, value);
+            return null;
+        }
+        V oldValue = valueTable[i];
+        if (oldValue == null) {
+            valueTable[i] = value;
+            modificationCount++;
+        }
+        return oldValue;
+    }
+
+    // If the key is absent (or mapped to null) computes its value and inserts it
+    // unless the computed value is null. Returns the current value of the key.
+    // The function must not modify the hash-table
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        if (key == null) throw new IllegalArgumentException("Null key");
+        resizeIfFull();
+
+        int i = findSlot(key);
+        if (i >= 0 && valueTable[i] != null) return valueTable[i];
+
+        final int MODIFICATION_COUNT = modificationCount;
+        V newValue = mappingFunction.apply(key);
+        if (MODIFICATION_COUNT != modificationCount) throw new ConcurrentModificationException();
+        if (newValue == null) return null;
+        if (i < 0) {
+            // A lookup made by the function may have relocated another key into the free slot
+            if (keyTable[-i - 1] != null && keyTable[-i - 1] != TOMBSTONE) i = findSlot(key);
+            insertSlot(-i - 1, key, newValue);
+        } else {
+            valueTable[i] = newValue;
+            modificationCount++;
+        }
+        return newValue;
+    }
+
+    // If the key is mapped to a non null value computes a new value from the key
+    // and the old value. A null result removes the key. Returns the new value.
+    // The function must not modify the hash-table
+    public V computeIfPresent(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        if (key == null) throw new IllegalArgumentException("Null key");
+        if (filteredOut(key)) return null;
+
+        int i = findSlot(key);
+        if (i < 0 || valueTable[i] == null) return null;
+
+        final int MODIFICATION_COUNT = modificationCount;
+        V newValue = remappingFunction.apply(key, valueTable[i]);
+        if (MODIFICATION_COUNT != modificationCount) throw new ConcurrentModificationException();
+        if (newValue == null) {
+            removeSlot(i);
+        } else {
+            valueTable[i] = newValue;
+            modificationCount++;
+        }
+        return newValue;
+    }
+
+    // Maps the key to 'value' if it is absent (or mapped to null), otherwise to the
+    // result of combining the old value with 'value'. A null result removes the key.
+    // The function must not modify the hash-table
+    public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        if (key == null) throw new IllegalArgumentException("Null key");
+        if (value == null) throw new IllegalArgumentException("Null value");
+        resizeIfFull();
+
+        int i = findSlot(key);
+        if (i < 0) {
+            insertSlot(-i - 1, key, value);
+            return value;
+        }
+
+        final int MODIFICATION_COUNT = modificationCount;
+        V newValue = valueTable[i] == null ? value : remappingFunction.apply(valueTable[i], value);
+        if (MODIFICATION_COUNT != modificationCount) throw new ConcurrentModificationException();
+        if (newValue == null) {
+            removeSlot(i);
+        } else {
+            valueTable[i] = newValue;
+            modificationCount++;
+        }
+        return newValue;
+    }
+
+    // Copies all the mappings of the given map into the hash-table. The table
+    // is grown at most once up front instead of doubling during the inserts
+    public void putAll(Map<? extends K, ? extends V> map) {
+        int expected = keyCount + map.size();
+        if (usedBuckets + map.size() >= threshold) {
+            int newCapacity = capacity;
+            while (expected >= (int) (newCapacity * loadFactor)) newCapacity *= 2;
+            resizeTable(newCapacity);
+        }
+        for (Map.Entry<? extends K, ? extends V> entry : map.entrySet())
+            insert(entry.getKey(), entry.getValue());
+    }
+
+    // Probes for the key once. Returns the index of the key if it exists in the
+    // hash-table, otherwise -(slot + 1) where 'slot' is the bucket the key should
+    // be inserted into (the first deleted bucket or else the null bucket found)
+    private int findSlot(K key) {
+        final int hash = normalizeIndex(hashStrategy.hash(key));
+        int i = hash, j = -1, x = 1;
+
+        do {
+            if (keyTable[i] == TOMBSTONE) {
+                if (j == -1) j = i;
+            } else if (keyTable[i] == null) {
+                return -(j == -1 ? i : j) - 1;
+            } else if (keyTable[i].equals(key)) {
+
+                // Lazy relocation, the same as in 'get'
+                if (j != -1) {
+                    keyTable[j] = keyTable[i];
+                    valueTable[j] = valueTable[i];
+                    keyTable[i] = TOMBSTONE;
+                    valueTable[i] = null;
+                    return j;
+                }
+                return i;
+            }
+
+            i = normalizeIndex(hash + P(x++));
+
+        } while (true);
+    }
+
+    // Makes room for one more key before probing for an insertion. If most of the
+    // used buckets are tombstones rebuilding the table at the same capacity is
+    // enough to make room, otherwise double it
+    private void resizeIfFull() {
+        if (usedBuckets >= threshold) resizeTable(keyCount >= threshold / 2 ? capacity * 2 : capacity);
+    }
+
+    // Places a new key in a slot returned by 'findSlot'
+    private void insertSlot(int i, K key, V value) {
+        if (keyTable[i] == null) usedBuckets++;
+        keyCount++;
+        keyTable[i] = key;
+        valueTable[i] = value;
+        if (bloomFilter != null) addToBloomFilter(key);
+        modificationCount++;
+    }
+
+    // Deletes the key at index i and shrinks the table if it became too sparse
+    private V removeSlot(int i) {
+        keyCount--;
+        modificationCount++;
+        V oldValue = valueTable[i];
+        keyTable[i] = TOMBSTONE;
+        valueTable[i] = null;
+        if (keyCount < minThreshold && capacity > minCapacity) resizeTable(capacity / 2);
+        return oldValue;
+    }
+
     // Returns a list keyTable found in the hash table
     public List<K> keys() {
         List<K> keys = new ArrayList<>(size());
@@ -303,11 +569,23 @@ public class HashTableQuadraticProbing <K,V> implements Iterable <K> {
         return values;
     }
 
-    // Double the size of the hash-table
-    private void resizeTable() {
+    // Rebuilds the hash-table with the smallest capacity which keeps the current
+    // keys at most half way to the resize threshold. This drops all tombstones
+    // and gives back the memory held on to since the table was at its peak size.
+    // The table never grows, one already past that point is rebuilt in place
+    public void compact() {
+        int newCapacity = DEFAULT_CAPACITY;
+        while (newCapacity < capacity && keyCount >= (int) (newCapacity * loadFactor) / 2) newCapacity *= 2;
+        resizeTable(newCapacity);
+        modificationCount++;
+    }
+
+    // Rehash all the entries into a table of the given capacity (a power of two)
+    private void resizeTable(int newCapacity) {
 
-        capacity *= 2;
+        capacity = newCapacity;
         threshold = (int) (capacity * loadFactor);
+        minThreshold = (int) (capacity * minLoadFactor);
 
         K[] oldKeyTable = (K[]) new Object[capacity];
         V[] oldValueTable = (V[]) new Object[capacity];
@@ -323,8 +601,10 @@ public class HashTableQuadraticProbing <K,V> implements Iterable <K> {
         oldValueTable = valueTableTmp;
 
         // Reset the key count and buckets used since we are about to
-        // re-insert all the keyTable into the hash-table.
+        // re-insert all the keyTable into the hash-table. The filter is
+        // rebuilt for the new capacity once the keys are in place
         keyCount = usedBuckets = 0;
+        bloomFilter = null;
 
         for (int i = 0; i < oldKeyTable.length; i++) {
             if (oldKeyTable[i] != null && oldKeyTable[i] != TOMBSTONE)
@@ -332,6 +612,183 @@ public class HashTableQuadraticProbing <K,V> implements Iterable <K> {
             oldValueTable[i] = null;
             oldKeyTable[i] = null;
         }
+
+        if (bloomFalsePositiveRate > 0) rebuildBloomFilter();
+    }
+
+    // Returns a histogram of the probe lengths of the keys: entry k counts the keys
+    // found after k collisions. A long tail means the keys are poorly distributed,
+    // a different hash strategy or a lower load factor should shorten it
+    public int[] probeLengthHistogram() {
+        int[] histogram = new int[1];
+        for (int i = 0; i < capacity; i++) {
+            if (keyTable[i] == null || keyTable[i] == TOMBSTONE) continue;
+
+            final int hash = normalizeIndex(hashStrategy.hash(keyTable[i]));
+            int probes = 0, x = 1;
+            for (int j = hash; j != i; j = normalizeIndex(hash + P(x++))) probes++;
+
+            if (probes >= histogram.length) histogram = Arrays.copyOf(histogram, probes + 1);
+            histogram[probes]++;
+        }
+        return histogram;
+    }
+
+    // Performs the action on every key-value pair by walking the backing arrays
+    // directly, without allocating lists or probing for each value
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        final int MODIFICATION_COUNT = modificationCount;
+        for (int i = 0; i < capacity; i++) {
+            if (keyTable[i] != null && keyTable[i] != TOMBSTONE)
+                action.accept(keyTable[i], valueTable[i]);
+            if (MODIFICATION_COUNT != modificationCount) throw new ConcurrentModificationException();
+        }
+    }
+
+    // Returns a new cursor positioned before the first entry
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    // A mutable cursor over the entries of the hash-table. A single cursor can be
+    // reused for any number of full scans by calling 'reset', so scanning the
+    // table does not allocate. Lookups with 'get' may relocate entries, so they
+    // should not be interleaved with a scan
+    public class Cursor {
+
+        private int index = -1, expectedModificationCount = modificationCount;
+
+        private Cursor() {}
+
+        // Moves the cursor back before the first entry
+        public Cursor reset() {
+            index = -1;
+            expectedModificationCount = modificationCount;
+            return this;
+        }
+
+        // Moves to the next entry, returns false once all the entries were visited
+        public boolean advance() {
+            if (expectedModificationCount != modificationCount) throw new ConcurrentModificationException();
+            while (++index < capacity)
+                if (keyTable[index] != null && keyTable[index] != TOMBSTONE) return true;
+            return false;
+        }
+
+        public K key() {
+            positionedOrThrow();
+            return keyTable[index];
+        }
+
+        public V value() {
+            positionedOrThrow();
+            return valueTable[index];
+        }
+
+        // Replaces the value of the current entry and returns the old one. This
+        // does not change the structure of the table so the scan stays valid
+        public V setValue(V value) {
+            positionedOrThrow();
+            V oldValue = valueTable[index];
+            valueTable[index] = value;
+            return oldValue;
+        }
+
+        private void positionedOrThrow() {
+            if (index < 0 || index >= capacity) throw new NoSuchElementException();
+        }
+    }
+
+    // Writes the hash-table to the stream in one sequential pass over the slots. Every
+    // slot is written with its marker, so the snapshot reproduces the exact layout
+    // of the table, tombstones included, and can be read back without rehashing
+    public void writeSnapshot(OutputStream os, Codec<? super K> keyCodec, Codec<? super V> valueCodec) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(os));
+        out.writeInt(SNAPSHOT_MAGIC);
+        out.writeInt(SNAPSHOT_VERSION);
+        out.writeInt(capacity);
+        out.writeDouble(loadFactor);
+        out.writeDouble(minLoadFactor);
+        out.writeInt(keyCount);
+
+        for (int i = 0; i < capacity; i++) {
+            if (keyTable[i] == null) {
+                out.writeByte(EMPTY_SLOT);
+            } else if (keyTable[i] == TOMBSTONE) {
+                out.writeByte(DELETED_SLOT);
+            } else {
+                out.writeByte(USED_SLOT);
+                out.writeInt(hashStrategy.hash(keyTable[i]));
+                keyCodec.write(out, keyTable[i]);
+                out.writeBoolean(valueTable[i] != null);
+                if (valueTable[i] != null) valueCodec.write(out, valueTable[i]);
+            }
+        }
+        out.flush();
+    }
+
+    // Reads a hash-table written by 'writeSnapshot' by a table using the default hash strategy
+    public static <K, V> HashTableQuadraticProbing<K, V> readSnapshot(InputStream is, Codec<K> keyCodec, Codec<V> valueCodec) throws IOException {
+        return readSnapshot(is, keyCodec, valueCodec, HashStrategy.MURMUR);
+    }
+
+    // Reads a hash-table written by 'writeSnapshot'. Every key is copied straight
+    // back into its slot. Only keys whose hash changed since the snapshot was taken
+    // (identity hash codes, a different seed) are re-inserted, leaving a tombstone
+    // behind so that the probe sequences passing through their old slot stay intact.
+    // The stream is read without buffering so that nothing past the snapshot is
+    // consumed, wrap a file stream in a BufferedInputStream before passing it
+    public static <K, V> HashTableQuadraticProbing<K, V> readSnapshot(InputStream is, Codec<K> keyCodec, Codec<V> valueCodec,
+                                                                      HashStrategy hashStrategy) throws IOException {
+        DataInputStream in = new DataInputStream(is);
+        if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION)
+            throw new IOException("Not a hash-table snapshot");
+
+        int capacity = in.readInt();
+        double loadFactor = in.readDouble(), minLoadFactor = in.readDouble();
+        int keyCount = in.readInt();
+        if (Integer.bitCount(capacity) != 1 || keyCount < 0 || keyCount > capacity
+                || !(loadFactor > 0) || Double.isInfinite(loadFactor)
+                || !(minLoadFactor >= 0) || minLoadFactor > loadFactor / 4)
+            throw new IOException("Corrupted hash-table snapshot");
+
+        HashTableQuadraticProbing<K, V> table = new HashTableQuadraticProbing<>(DEFAULT_CAPACITY, loadFactor, minLoadFactor, hashStrategy);
+        table.capacity = capacity;
+        table.threshold = (int) (capacity * loadFactor);
+        table.minThreshold = (int) (capacity * minLoadFactor);
+        table.keyTable = (K[]) new Object[capacity];
+        table.valueTable = (V[]) new Object[capacity];
+
+        List<K> movedKeys = new ArrayList<>();
+        List<V> movedValues = new ArrayList<>();
+
+        for (int i = 0; i < capacity; i++) {
+            byte marker = in.readByte();
+            if (marker == EMPTY_SLOT) continue;
+
+            table.usedBuckets++;
+            if (marker == DELETED_SLOT) {
+                table.keyTable[i] = table.TOMBSTONE;
+            } else if (marker == USED_SLOT) {
+                int hash = in.readInt();
+                K key = keyCodec.read(in);
+                V value = in.readBoolean() ? valueCodec.read(in) : null;
+
+                if (hashStrategy.hash(key) == hash) {
+                    table.keyTable[i] = key;
+                    table.valueTable[i] = value;
+                    table.keyCount++;
+                } else {
+                    table.keyTable[i] = table.TOMBSTONE;
+                    movedKeys.add(key);
+                    movedValues.add(value);
+                }
+            } else throw new IOException("Corrupted hash-table snapshot");
+        }
+
+        for (int i = 0; i < movedKeys.size(); i++) table.insert(movedKeys.get(i), movedValues.get(i));
+        if (table.keyCount != keyCount) throw new IOException("Corrupted hash-table snapshot");
+        return table;
     }
 
     // Return a String view of this hash-table.
@@ -4,7 +4,11 @@ package com.tirkishovkadyr.datastructure;
  * An implementation of a hash-table using separate chaining with a linked list.
  **/
 
+import java.io.*;
 import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 
 
 class Entry<K, V> {
@@ -12,10 +16,10 @@ class Entry<K, V> {
     int hash;
     K key; V value;
 
-    public Entry(K key, V value) {
+    public Entry(K key, V value, int hash) {
         this.key = key;
         this.value = value;
-        this.hash = key.hashCode();
+        this.hash = hash;
     }
 
     // We are not overriding the Object equals method
@@ -32,26 +36,65 @@ class Entry<K, V> {
 
 
 public class HashTableSeparateChaining<K, V> implements Iterable<K> {
-    private static final int DEFAULT_CAPACITY = 3;
+    private static final int DEFAULT_CAPACITY = 4;
     private static final double DEFAULT_LOAD_FACTOR = 0.75;
+    private static final int SNAPSHOT_MAGIC = 0x48545343, SNAPSHOT_VERSION = 1;
+
+    private double maxLoadFactor, minLoadFactor;
+    private int capacity, threshold, minThreshold, size = 0, modificationCount = 0;
+
+    // The capacity the table was created with. Removals never shrink the
+    // table below it, so a pre-sized table keeps the room it was given
+    private int minCapacity;
 
-    private double maxLoadFactor;
-    private int capacity, threshold, size = 0;
     private LinkedList<Entry<K, V>>[] table;
 
+    // Maps the keys to the hashes the buckets are derived from
+    private final HashStrategy hashStrategy;
+
+    // Optional filter in front of the table which answers most lookups of absent
+    // keys without walking a bucket. It is rebuilt, at the requested false positive
+    // rate, whenever the table is resized. Removed keys stay in it until then
+    private BlockedBloomFilter<K> bloomFilter;
+    private double bloomFalsePositiveRate;
+
+    // The keys added to the filter since it was built and the number it was
+    // sized for. Under put/remove churn the size of the table stays put while
+    // the filter keeps filling, so this count tells when it must be rebuilt
+    private int bloomInserts, bloomCapacity;
+
     public HashTableSeparateChaining() {
         this(DEFAULT_CAPACITY, DEFAULT_LOAD_FACTOR);
     }
 
+    // By default the table shrinks once it drops below a quarter of the maximum load factor
     public HashTableSeparateChaining(int capacity, double maxLoadFactor) {
+        this(capacity, maxLoadFactor, maxLoadFactor / 4);
+    }
+
+    public HashTableSeparateChaining(int capacity, double maxLoadFactor, double minLoadFactor) {
+        this(capacity, maxLoadFactor, minLoadFactor, HashStrategy.MURMUR);
+    }
+
+    // A 'minLoadFactor' of zero disables shrinking. It may be at most a quarter of
+    // 'maxLoadFactor' so that a halved table is still at most half way to growing
+    // again. The capacity is rounded up to a power of two
+    public HashTableSeparateChaining(int capacity, double maxLoadFactor, double minLoadFactor, HashStrategy hashStrategy) {
         if ( capacity < 0)
             throw new IllegalArgumentException("Illegal Capacity");
         if ( maxLoadFactor <= 0 || Double.isNaN(maxLoadFactor) || Double.isInfinite(maxLoadFactor) )
             throw new IllegalArgumentException("Illegal maxLoadFactor");
+        if ( minLoadFactor < 0 || Double.isNaN(minLoadFactor) || minLoadFactor > maxLoadFactor / 4 )
+            throw new IllegalArgumentException("Illegal minLoadFactor");
+        if ( hashStrategy == null )
+            throw new IllegalArgumentException("Null hashStrategy");
 
         this.maxLoadFactor = maxLoadFactor;
-        this.capacity = Math.max(DEFAULT_CAPACITY, capacity);
+        this.minLoadFactor = minLoadFactor;
+        this.hashStrategy = hashStrategy;
+        this.capacity = minCapacity = powerOfTwoAtLeast(capacity);
         threshold = (int) (this.capacity * maxLoadFactor);
+        minThreshold = (int) (this.capacity * minLoadFactor);
         table = new LinkedList[this.capacity];
     }
 
@@ -61,25 +104,72 @@ public class HashTableSeparateChaining<K, V> implements Iterable<K> {
     // Returns true/false depending on whether the hash-table is empty
     public boolean isEmpty() { return this.size == 0; }
 
-    // Converts a hash value to an index. Essentially, this strips the
-    // negative sign and places the hash in the domain [0, capacity)
+    // Converts a hash value to an index in the domain [0, capacity). The
+    // capacity is a power of two so this only needs to mask the low bits
     private int normalizeIndex(int keyHash) {
-        return (keyHash & 0x7FFFFFFF) % capacity;
-        // 0x7FFFFFFF That is the mask that clears all negative signs
-        // keyHash is digit between int limits -32*******, 32******
+        return keyHash & (capacity - 1);
+    }
+
+    // The smallest power of two which is at least n and DEFAULT_CAPACITY
+    private static int powerOfTwoAtLeast(int n) {
+        return Math.max(DEFAULT_CAPACITY, Integer.highestOneBit(Math.max(1, n - 1)) << 1);
     }
 
     // Clears all the contents of the hash table
     public void clear() {
         Arrays.fill(table, null);
-        size = 0;
+        if ( bloomFilter != null ) bloomFilter.clear();
+        size = bloomInserts = 0;
+        modificationCount++;
+    }
+
+    // Puts a Bloom filter with the given false positive rate in front of the table
+    public void enableBloomFilter(double falsePositiveRate) {
+        if ( falsePositiveRate <= 0 || falsePositiveRate >= 1 || Double.isNaN(falsePositiveRate) )
+            throw new IllegalArgumentException("Illegal falsePositiveRate");
+        bloomFalsePositiveRate = falsePositiveRate;
+        rebuildBloomFilter();
+    }
+
+    public void disableBloomFilter() {
+        bloomFilter = null;
+        bloomFalsePositiveRate = 0;
+    }
+
+    // Sizes the filter for the number of entries the table holds before its
+    // next resize, with room for at least half as many more inserts, and adds
+    // all the keys currently in the table to it
+    private void rebuildBloomFilter() {
+        bloomCapacity = Math.max(threshold, size + threshold / 2);
+        bloomFilter = new BlockedBloomFilter<>(bloomCapacity, bloomFalsePositiveRate);
+        bloomInserts = size;
+        for ( LinkedList<Entry<K, V>> bucket : table )
+            if ( bucket != null )
+                for ( Entry<K, V> entry : bucket ) bloomFilter.add(entry.key);
+    }
+
+    // Adds a key just placed in the table to the filter. Once the filter holds
+    // as many keys as it was sized for it is rebuilt from the live keys instead,
+    // which drops the removed ones
+    private void addToBloomFilter(K key) {
+        if ( bloomInserts >= bloomCapacity ) rebuildBloomFilter();
+        else {
+            bloomFilter.add(key);
+            bloomInserts++;
+        }
+    }
+
+    // True if the key is certainly not in the table
+    private boolean filteredOut(K key) {
+        return bloomFilter != null && !bloomFilter.mightContain(key);
     }
 
     public boolean containsKey(K key) { return hasKey(key); }
 
     // Returns true/false depending on whether a key is in hash table
     public boolean hasKey(K key) {
-        int bucketIndex = normalizeIndex(key.hashCode());
+        if ( filteredOut(key) ) return false;
+        int bucketIndex = normalizeIndex(hashStrategy.hash(key));
         return bucketSeekEntry(bucketIndex, key) != null;
     }
 
@@ -90,7 +180,7 @@ public class HashTableSeparateChaining<K, V> implements Iterable<K> {
     public V insert(K key, V value) {
 
         if ( key == null ) throw new IllegalArgumentException("Null key");
-        Entry<K, V> newEntry = new Entry<>(key, value);
+        Entry<K, V> newEntry = new Entry<>(key, value, hashStrategy.hash(key));
         int bucketIndex = normalizeIndex(newEntry.hash);
         return bucketInsertEntry(bucketIndex, newEntry);
     }
@@ -99,8 +189,8 @@ public class HashTableSeparateChaining<K, V> implements Iterable<K> {
     // Note: returns null if the value is null AND also returns
     // null if the key does not exists, so watch out.
     public V get(K key) {
-        if ( key == null ) return null;
-        int bucketIndex = normalizeIndex(key.hashCode());
+        if ( key == null || filteredOut(key) ) return null;
+        int bucketIndex = normalizeIndex(hashStrategy.hash(key));
         Entry<K,V> entry = bucketSeekEntry(bucketIndex, key);
         if ( entry != null ) return entry.value;
         return null;
@@ -110,33 +200,138 @@ public class HashTableSeparateChaining<K, V> implements Iterable<K> {
     // NOTE: returns null if the value is null ND also returns
     // null if the key doesn't exist
     public V remove(K key) {
-        if ( key == null ) return null;
-        int bucketIndex = normalizeIndex(key.hashCode());
+        if ( key == null || filteredOut(key) ) return null;
+        int bucketIndex = normalizeIndex(hashStrategy.hash(key));
         return bucketRemoveEntry(bucketIndex, key);
     }
 
+    // Returns the value mapped to the key, or 'defaultValue' if the key does not exist
+    public V getOrDefault(K key, V defaultValue) {
+        if ( key == null || filteredOut(key) ) return defaultValue;
+        Entry<K, V> entry = bucketSeekEntry(normalizeIndex(hashStrategy.hash(key)), key);
+        return entry != null ? entry.value : defaultValue;
+    }
+
+    // Places the key value pair in the hash-table unless the key is already
+    // mapped to a non null value, in which case that value is returned
+    public V putIfAbsent(K key, V value) {
+        if ( key == null ) throw new IllegalArgumentException("Null key");
+        int hash = hashStrategy.hash(key), bucketIndex = normalizeIndex(hash);
+        Entry<K, V> entry = bucketSeekEntry(bucketIndex, key);
+        if ( entry == null ) {
+            bucketAddEntry(bucketIndex, new Entry<>(key, value, hash));
+            return null;
+        }
+        V oldValue = entry.value;
+        if ( oldValue == null ) entry.value = value;
+        return oldValue;
+    }
+
+    // If the key is absent (or mapped to null) computes its value and inserts it
+    // unless the computed value is null. Returns the current value of the key.
+    // The function must not modify the hash table
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        if ( key == null ) throw new IllegalArgumentException("Null key");
+        int hash = hashStrategy.hash(key), bucketIndex = normalizeIndex(hash);
+        Entry<K, V> entry = bucketSeekEntry(bucketIndex, key);
+        if ( entry != null && entry.value != null ) return entry.value;
+
+        final int MODIFICATION_COUNT = modificationCount;
+        V newValue = mappingFunction.apply(key);
+        if ( MODIFICATION_COUNT != modificationCount ) throw new ConcurrentModificationException();
+        if ( newValue == null ) return null;
+        if ( entry == null ) bucketAddEntry(bucketIndex, new Entry<>(key, newValue, hash));
+        else entry.value = newValue;
+        return newValue;
+    }
+
+    // If the key is mapped to a non null value computes a new value from the key
+    // and the old value. A null result removes the key. Returns the new value.
+    // The function must not modify the hash table
+    public V computeIfPresent(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        if ( key == null ) throw new IllegalArgumentException("Null key");
+        if ( filteredOut(key) ) return null;
+        int bucketIndex = normalizeIndex(hashStrategy.hash(key));
+        Entry<K, V> entry = bucketSeekEntry(bucketIndex, key);
+        if ( entry == null || entry.value == null ) return null;
+
+        final int MODIFICATION_COUNT = modificationCount;
+        V newValue = remappingFunction.apply(key, entry.value);
+        if ( MODIFICATION_COUNT != modificationCount ) throw new ConcurrentModificationException();
+        if ( newValue == null ) bucketUnlinkEntry(bucketIndex, entry);
+        else entry.value = newValue;
+        return newValue;
+    }
+
+    // Maps the key to 'value' if it is absent (or mapped to null), otherwise to the
+    // result of combining the old value with 'value'. A null result removes the key.
+    // The function must not modify the hash table
+    public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        if ( key == null ) throw new IllegalArgumentException("Null key");
+        if ( value == null ) throw new IllegalArgumentException("Null value");
+        int hash = hashStrategy.hash(key), bucketIndex = normalizeIndex(hash);
+        Entry<K, V> entry = bucketSeekEntry(bucketIndex, key);
+        if ( entry == null ) {
+            bucketAddEntry(bucketIndex, new Entry<>(key, value, hash));
+            return value;
+        }
+
+        final int MODIFICATION_COUNT = modificationCount;
+        V newValue = entry.value == null ? value : remappingFunction.apply(entry.value, value);
+        if ( MODIFICATION_COUNT != modificationCount ) throw new ConcurrentModificationException();
+        if ( newValue == null ) bucketUnlinkEntry(bucketIndex, entry);
+        else entry.value = newValue;
+        return newValue;
+    }
+
+    // Copies all the mappings of the given map into the hash-table. The table
+    // is grown at most once up front instead of doubling during the inserts
+    public void putAll(Map<? extends K, ? extends V> map) {
+        int expected = size + map.size();
+        if ( expected > threshold ) {
+            int newCapacity = capacity;
+            while ( expected > (int) (newCapacity * maxLoadFactor) ) newCapacity *= 2;
+            resizeTable(newCapacity);
+        }
+        for ( Map.Entry<? extends K, ? extends V> entry : map.entrySet() )
+            insert(entry.getKey(), entry.getValue());
+    }
+
     private V bucketRemoveEntry(int bucketIndex, K key) {
 
         Entry<K, V> entry = bucketSeekEntry(bucketIndex, key);
         if ( entry != null ) {
-            LinkedList<Entry<K, V>> links = table[bucketIndex];
-            links.remove(entry);
-            --size;
+            bucketUnlinkEntry(bucketIndex, entry);
             return entry.value;
         } else return null;
     }
 
-    // Inserts an entry in a given bucket only if the entry does not already
-    // exist in the given bucket, but if it does then update the entry value
-    private V bucketInsertEntry(int bucketIndex, Entry<K, V> entry) {
+    // Removes an entry known to be in the given bucket
+    // and shrinks the table if it became too sparse
+    private void bucketUnlinkEntry(int bucketIndex, Entry<K, V> entry) {
+        LinkedList<Entry<K, V>> links = table[bucketIndex];
+        links.remove(entry);
+        modificationCount++;
+        if ( --size < minThreshold && capacity > minCapacity ) resizeTable(capacity / 2);
+    }
 
+    // Appends an entry known not to be in the given bucket
+    private void bucketAddEntry(int bucketIndex, Entry<K, V> entry) {
         LinkedList<Entry<K, V>> bucket = table[bucketIndex];
         if ( bucket == null ) table[bucketIndex] = bucket = new LinkedList<>();
+        bucket.add(entry);
+        modificationCount++;
+        if ( ++size > threshold ) resizeTable(capacity * 2);
+        else if ( bloomFilter != null ) addToBloomFilter(entry.key);
+    }
+
+    // Inserts an entry in a given bucket only if the entry does not already
+    // exist in the given bucket, but if it does then update the entry value
+    private V bucketInsertEntry(int bucketIndex, Entry<K, V> entry) {
 
         Entry<K, V> existentEntry = bucketSeekEntry(bucketIndex, entry.key);
         if ( existentEntry == null ) {
-            bucket.add(entry);
-            if ( ++size > threshold ) resizeTable();
+            bucketAddEntry(bucketIndex, entry);
             return null; // Use null that there was no previous entry
         } else {
             V oldVal = existentEntry.value;
@@ -157,10 +352,20 @@ public class HashTableSeparateChaining<K, V> implements Iterable<K> {
         return null;
     }
 
+    // Rebuilds the table with the smallest capacity which keeps the current entries
+    // at most half way to the resize threshold, so that memory held since the peak
+    // size is given back and iteration cost follows the number of live entries
+    public void compact() {
+        int newCapacity = powerOfTwoAtLeast((int) Math.ceil(2 * size / maxLoadFactor));
+        if ( newCapacity < capacity ) resizeTable(newCapacity);
+    }
+
     // Resizes the internal table holding buckets of entries
-    private void resizeTable() {
-        capacity *= 2;
+    private void resizeTable(int newCapacity) {
+        modificationCount++;
+        capacity = newCapacity;
         threshold = (int) (capacity * maxLoadFactor);
+        minThreshold = (int) (capacity * minLoadFactor);
 
         LinkedList<Entry<K, V>>[] newTable = new LinkedList[capacity];
 
@@ -181,6 +386,7 @@ public class HashTableSeparateChaining<K, V> implements Iterable<K> {
         }
 
         table = newTable;
+        if ( bloomFalsePositiveRate > 0 ) rebuildBloomFilter();
 
     }
 
@@ -206,10 +412,96 @@ public class HashTableSeparateChaining<K, V> implements Iterable<K> {
         return values;
     }
 
+    // Returns a histogram of the bucket lengths: entry k counts the buckets holding
+    // k entries. A long tail means the keys are poorly distributed, a different
+    // hash strategy or a lower load factor should shorten it
+    public int[] bucketLengthHistogram() {
+        int[] histogram = new int[1];
+        for ( LinkedList<Entry<K, V>> bucket : table ) {
+            int length = bucket == null ? 0 : bucket.size();
+            if ( length >= histogram.length ) histogram = Arrays.copyOf(histogram, length + 1);
+            histogram[length]++;
+        }
+        return histogram;
+    }
+
+    // Performs the action on every key-value pair without materializing lists
+    // of keys and values or seeking each value by its key
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        final int MODIFICATION_COUNT = modificationCount;
+        for ( int i = 0; i < capacity; i++ ) {
+            LinkedList<Entry<K, V>> bucket = table[i];
+            if ( bucket == null ) continue;
+            for ( Entry<K, V> entry : bucket ) {
+                action.accept(entry.key, entry.value);
+                if ( MODIFICATION_COUNT != modificationCount ) throw new ConcurrentModificationException();
+            }
+        }
+    }
+
+    // Returns a new cursor positioned before the first entry
+    public Cursor cursor() { return new Cursor(); }
+
+    // A mutable cursor over the entries of the hash table. A single cursor can be
+    // reused for any number of full scans by calling 'reset', so scanning the
+    // table does not materialize lists of keys and values. Each bucket is walked
+    // with its own iterator, so a long chain is still visited in linear time
+    public class Cursor {
+
+        private int bucketIndex = -1, expectedModificationCount = modificationCount;
+        private java.util.Iterator<Entry<K, V>> bucketIter;
+        private Entry<K, V> entry;
+
+        private Cursor() {}
+
+        // Moves the cursor back before the first entry
+        public Cursor reset() {
+            bucketIndex = -1;
+            expectedModificationCount = modificationCount;
+            bucketIter = null;
+            entry = null;
+            return this;
+        }
+
+        // Moves to the next entry, returns false once all the entries were visited
+        public boolean advance() {
+            if ( expectedModificationCount != modificationCount ) throw new ConcurrentModificationException();
+            while ( bucketIter == null || !bucketIter.hasNext() ) {
+                if ( bucketIndex + 1 >= capacity ) {
+                    bucketIndex = capacity;
+                    bucketIter = null;
+                    entry = null;
+                    return false;
+                }
+                LinkedList<Entry<K, V>> bucket = table[++bucketIndex];
+                bucketIter = bucket == null ? null : bucket.iterator();
+            }
+            entry = bucketIter.next();
+            return true;
+        }
+
+        public K key() { return current().key; }
+
+        public V value() { return current().value; }
+
+        // Replaces the value of the current entry and returns the old one
+        public V setValue(V value) {
+            Entry<K, V> current = current();
+            V oldValue = current.value;
+            current.value = value;
+            return oldValue;
+        }
+
+        private Entry<K, V> current() {
+            if ( entry == null ) throw new NoSuchElementException();
+            return entry;
+        }
+    }
+
     // Return an iterator to iterate over all the keys in this map
     @Override
     public java.util.Iterator<K> iterator() {
-        final int elementCount = size();
+        final int MODIFICATION_COUNT = modificationCount;
         return new java.util.Iterator<K>() {
 
             int bucketIndex = 0;
@@ -219,7 +511,7 @@ public class HashTableSeparateChaining<K, V> implements Iterable<K> {
             public boolean hasNext() {
 
                 // An item was added or removed while iterating
-                if (elementCount != size) throw new java.util.ConcurrentModificationException();
+                if (MODIFICATION_COUNT != modificationCount) throw new java.util.ConcurrentModificationException();
 
                 // No iterator or the current iterator is empty
                 if (bucketIter == null || !bucketIter.hasNext()) {
@@ -252,6 +544,65 @@ public class HashTableSeparateChaining<K, V> implements Iterable<K> {
         };
     }
 
+    // Writes the hash table to the stream in one sequential pass, bucket by bucket
+    public void writeSnapshot(OutputStream os, Codec<? super K> keyCodec, Codec<? super V> valueCodec) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(os));
+        out.writeInt(SNAPSHOT_MAGIC);
+        out.writeInt(SNAPSHOT_VERSION);
+        out.writeInt(capacity);
+        out.writeDouble(maxLoadFactor);
+        out.writeDouble(minLoadFactor);
+        out.writeInt(size);
+
+        for ( LinkedList<Entry<K, V>> bucket : table ) {
+            if ( bucket == null ) continue;
+            for ( Entry<K, V> entry : bucket ) {
+                keyCodec.write(out, entry.key);
+                out.writeBoolean(entry.value != null);
+                if ( entry.value != null ) valueCodec.write(out, entry.value);
+            }
+        }
+        out.flush();
+    }
+
+    // Reads a hash table written by 'writeSnapshot' into a table using the default hash strategy
+    public static <K, V> HashTableSeparateChaining<K, V> readSnapshot(InputStream is, Codec<K> keyCodec, Codec<V> valueCodec) throws IOException {
+        return readSnapshot(is, keyCodec, valueCodec, HashStrategy.MURMUR);
+    }
+
+    // Reads a hash table written by 'writeSnapshot'. The table is created with the
+    // capacity it was written with and every entry is appended straight to its
+    // bucket, skipping the duplicate check and never resizing along the way. The
+    // stream is read without buffering so that nothing past the snapshot is
+    // consumed, wrap a file stream in a BufferedInputStream before passing it
+    public static <K, V> HashTableSeparateChaining<K, V> readSnapshot(InputStream is, Codec<K> keyCodec, Codec<V> valueCodec,
+                                                                      HashStrategy hashStrategy) throws IOException {
+        DataInputStream in = new DataInputStream(is);
+        if ( in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION )
+            throw new IOException("Not a hash table snapshot");
+
+        int capacity = in.readInt();
+        double maxLoadFactor = in.readDouble(), minLoadFactor = in.readDouble();
+        int size = in.readInt();
+        if ( capacity <= 0 || size < 0 || !(maxLoadFactor > 0) || Double.isInfinite(maxLoadFactor)
+                || !(minLoadFactor >= 0) || minLoadFactor > maxLoadFactor / 4 )
+            throw new IOException("Corrupted hash table snapshot");
+
+        HashTableSeparateChaining<K, V> hashTable = new HashTableSeparateChaining<>(capacity, maxLoadFactor, minLoadFactor, hashStrategy);
+        hashTable.minCapacity = DEFAULT_CAPACITY; // The snapshot does not record the capacity asked for
+        for ( int i = 0; i < size; i++ ) {
+            K key = keyCodec.read(in);
+            V value = in.readBoolean() ? valueCodec.read(in) : null;
+            Entry<K, V> entry = new Entry<>(key, value, hashStrategy.hash(key));
+            int bucketIndex = hashTable.normalizeIndex(entry.hash);
+            LinkedList<Entry<K, V>> bucket = hashTable.table[bucketIndex];
+            if ( bucket == null ) hashTable.table[bucketIndex] = bucket = new LinkedList<>();
+            bucket.add(entry);
+        }
+        hashTable.size = size;
+        return hashTable;
+    }
+
     // Returns a string representation of this hash table
     @Override
     public String toString() {
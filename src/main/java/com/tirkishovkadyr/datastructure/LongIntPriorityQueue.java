@@ -0,0 +1,140 @@
+package com.tirkishovkadyr.datastructure;
+
+/*
+ * A min priority queue of (long key, int payload) pairs, ordered by key, using
+ * a binary heap. The keys are stored in a long[] and the payloads in a
+ * parallel int[], so a pair such as (timestamp, eventId) is queued without
+ * creating an object and compared with a single long comparison.
+ *
+ * Peeking or polling an empty queue throws since there is no null to return.
+ */
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+public class LongIntPriorityQueue {
+
+    // The number of elements currently inside the heap
+    private int heapSize = 0;
+
+    // The keys in heap order and the payload of each key at the same index
+    private long[] keys;
+    private int[] payloads;
+
+    // Construct and initially empty priority queue
+    public LongIntPriorityQueue() { this(16); }
+
+    // Construct a priority queue with an initial capacity
+    public LongIntPriorityQueue(int sz) {
+        keys = new long[Math.max(1, sz)];
+        payloads = new int[keys.length];
+    }
+
+    // Construct a priority queue from the first 'size' pairs of the arrays
+    // using heapify, O(n). The queue takes over the arrays rather than
+    // copying them
+    public LongIntPriorityQueue(long[] keys, int[] payloads, int size) {
+        if (keys.length != payloads.length) throw new IllegalArgumentException("Arrays differ in length");
+        if (size < 0 || size > keys.length) throw new IllegalArgumentException("Illegal size: " + size);
+        if (keys.length == 0) {
+            keys = new long[1];
+            payloads = new int[1];
+        }
+        this.keys = keys;
+        this.payloads = payloads;
+        heapSize = size;
+
+        // Floyd's heapify process: sink every non leaf node from the bottom up
+        for (int i = (heapSize >> 1) - 1; i >= 0; i--) sink(i, keys[i], payloads[i]);
+    }
+
+    // Return true/false depending on if the priority queue is empty
+    public boolean isEmpty() {
+        return heapSize == 0;
+    }
+
+    // Returns the size of the heap
+    public int size() {
+        return heapSize;
+    }
+
+    // Clears everything inside the heap, O(1)
+    public void clear() {
+        heapSize = 0;
+    }
+
+    // Returns the smallest key, O(1)
+    public long peekKey() {
+        isNotEmptyOrThrow();
+        return keys[0];
+    }
+
+    // Returns the payload of the smallest key, O(1)
+    public int peekPayload() {
+        isNotEmptyOrThrow();
+        return payloads[0];
+    }
+
+    // Adds a pair to the priority queue, O(log(n))
+    public void add(long key, int payload) {
+        if (heapSize == keys.length) {
+            keys = Arrays.copyOf(keys, heapSize * 2);
+            payloads = Arrays.copyOf(payloads, heapSize * 2);
+        }
+
+        // Move the parents down into the hole until the pair fits
+        int hole = heapSize++;
+        while (hole > 0) {
+            int parent = (hole - 1) >> 1;
+            if (keys[parent] <= key) break;
+            keys[hole] = keys[parent];
+            payloads[hole] = payloads[parent];
+            hole = parent;
+        }
+        keys[hole] = key;
+        payloads[hole] = payload;
+    }
+
+    // Removes the pair with the smallest key and returns its payload. Read
+    // the key with 'peekKey' first if it is needed as well, O(log(n))
+    public int poll() {
+        isNotEmptyOrThrow();
+        int root = payloads[0];
+        if (--heapSize > 0) sink(0, keys[heapSize], payloads[heapSize]);
+        return root;
+    }
+
+    // Places the pair at index k and sinks it down, O(log(n))
+    private void sink(int k, long key, int payload) {
+        for (int left = 2 * k + 1; left < heapSize; left = 2 * k + 1) {
+            int smallest = (left + 1 < heapSize && keys[left + 1] < keys[left]) ? left + 1 : left;
+            if (key <= keys[smallest]) break;
+            keys[k] = keys[smallest];
+            payloads[k] = payloads[smallest];
+            k = smallest;
+        }
+        keys[k] = key;
+        payloads[k] = payload;
+    }
+
+    private void isNotEmptyOrThrow() {
+        if (isEmpty()) throw new NoSuchElementException("Priority queue underflow");
+    }
+
+    // Checks if this heap is a min heap. This method is just for testing
+    // purposes to make sure the heap invariant is still being maintained
+    public boolean isMinHeap() {
+        for (int i = 1; i < heapSize; i++)
+            if (keys[i] < keys[(i - 1) >> 1]) return false;
+        return true;
+    }
+
+    @Override public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < heapSize; i++) {
+            if (i > 0) sb.append(", ");
+            sb.append(keys[i]).append('=').append(payloads[i]);
+        }
+        return sb.append("]").toString();
+    }
+}
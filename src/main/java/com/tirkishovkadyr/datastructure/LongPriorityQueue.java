@@ -0,0 +1,107 @@
+package com.tirkishovkadyr.datastructure;
+
+/*
+ * A min priority queue of primitive longs using a binary heap stored in a
+ * long[]. It has the same add/poll/peek behaviour as PQueue, except that
+ * peeking or polling an empty queue throws since there is no null to return.
+ * Nothing is allocated per operation and comparisons are plain long
+ * comparisons instead of compareTo calls on boxed values.
+ */
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+public class LongPriorityQueue {
+
+    // The number of elements currently inside the heap
+    private int heapSize = 0;
+
+    // The elements in heap order
+    private long[] heap;
+
+    // Construct and initially empty priority queue
+    public LongPriorityQueue() { this(16); }
+
+    // Construct a priority queue with an initial capacity
+    public LongPriorityQueue(int sz) {
+        heap = new long[Math.max(1, sz)];
+    }
+
+    // Construct a priority queue using heapify, O(n)
+    public LongPriorityQueue(long[] elems) {
+        heap = Arrays.copyOf(elems, Math.max(1, elems.length));
+        heapSize = elems.length;
+        for (int i = heapSize / 2 - 1; i >= 0; i--) sink(i, heap[i]);
+    }
+
+    // Return true/false depending on if the priority queue is empty
+    public boolean isEmpty() {
+        return heapSize == 0;
+    }
+
+    // Returns the size of the heap
+    public int size() {
+        return heapSize;
+    }
+
+    // Clears everything inside the heap, O(1)
+    public void clear() {
+        heapSize = 0;
+    }
+
+    // Returns the smallest element, O(1)
+    public long peek() {
+        isNotEmptyOrThrow();
+        return heap[0];
+    }
+
+    // Adds an element to the priority queue, O(log(n))
+    public void add(long elem) {
+        if (heapSize == heap.length) heap = Arrays.copyOf(heap, heapSize * 2);
+
+        // Move the parents down into the hole until the element fits
+        int hole = heapSize++;
+        while (hole > 0) {
+            int parent = (hole - 1) >> 1;
+            if (heap[parent] <= elem) break;
+            heap[hole] = heap[parent];
+            hole = parent;
+        }
+        heap[hole] = elem;
+    }
+
+    // Removes and returns the smallest element, O(log(n))
+    public long poll() {
+        isNotEmptyOrThrow();
+        long root = heap[0];
+        if (--heapSize > 0) sink(0, heap[heapSize]);
+        return root;
+    }
+
+    // Places elem at index k and sinks it down, O(log(n))
+    private void sink(int k, long elem) {
+        for (int left = 2 * k + 1; left < heapSize; left = 2 * k + 1) {
+            int smallest = (left + 1 < heapSize && heap[left + 1] < heap[left]) ? left + 1 : left;
+            if (elem <= heap[smallest]) break;
+            heap[k] = heap[smallest];
+            k = smallest;
+        }
+        heap[k] = elem;
+    }
+
+    private void isNotEmptyOrThrow() {
+        if (isEmpty()) throw new NoSuchElementException("Priority queue underflow");
+    }
+
+    // Checks if this heap is a min heap. This method is just for testing
+    // purposes to make sure the heap invariant is still being maintained
+    public boolean isMinHeap() {
+        for (int i = 1; i < heapSize; i++)
+            if (heap[i] < heap[(i - 1) >> 1]) return false;
+        return true;
+    }
+
+    @Override public String toString() {
+        return Arrays.toString(Arrays.copyOf(heap, heapSize));
+    }
+}
@@ -19,5 +19,10 @@ public class MinIndexedBinaryHeap <T extends Comparable<T>> extends MinIndexedDH
         super(2, maxSize);
     }
 
+    // A heap which grows to fit any non negative key index
+    public MinIndexedBinaryHeap() {
+        super(2);
+    }
+
 
 }
@@ -8,6 +8,10 @@
  * <p>As convention, I denote 'ki' as the index value in the domain [0, N) associated with a key k,
  * therefore: ki = map[k]
  *
+ * <p>A heap constructed without a maximum size grows its arrays to fit whatever key index is
+ * inserted. The child and parent positions are computed on the fly, so the heap keeps three
+ * arrays per key rather than five.
+ *
  * @author William Fiset, william.alexandre.fiset@gmail.com
  */
 package com.tirkishovkadyr.datastructure;
@@ -16,6 +20,7 @@ import static java.lang.Math.max;
 import static java.lang.Math.min;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.NoSuchElementException;
 
@@ -24,46 +29,56 @@ public class MinIndexedDHeap<T extends Comparable<T>> {
     // Current number of elements in the heap.
     private int sz;
 
-    // Maximum number of elements in the heap.
-    private final int N;
+    // Maximum number of elements in the heap, the current capacity of a growable heap.
+    private int N;
 
     // The degree of every node in the heap.
     private final int D;
 
-    // Lookup arrays to track the child/parent indexes of each node.
-    private final int[] child, parent;
+    // log2(D) if D is a power of two, in which case the child and parent
+    // indexes are computed with shifts instead of a multiplication and a
+    // division, -1 otherwise.
+    private final int shift;
+
+    // Whether the arrays grow to fit any key index instead of having a fixed size.
+    private final boolean growable;
 
     // The Position Map (pm) maps Key Indexes (ki) to where the position of that
     // key is represented in the priority queue in the domain [0, sz).
-    public final int[] pm;
+    private int[] pm;
 
     // The Inverse Map (im) stores the indexes of the keys in the range
     // [0, sz) which make up the priority queue. It should be noted that
     // 'im' and 'pm' are inverses of each other, so: pm[im[i]] = im[pm[i]] = i
-    public final int[] im;
+    private int[] im;
 
     // The values associated with the keys. It is very important  to note
     // that this array is indexed by the key indexes (aka 'ki').
-    public final Object[] values;
+    private Object[] values;
 
     // Initializes a D-ary heap with a maximum capacity of maxSize.
     public MinIndexedDHeap(int degree, int maxSize) {
+        this(degree, maxSize, false);
+    }
+
+    // Initializes a D-ary heap which grows to fit any non negative key index.
+    public MinIndexedDHeap(int degree) {
+        this(degree, 1, true);
+    }
+
+    private MinIndexedDHeap(int degree, int maxSize, boolean growable) {
         if (maxSize <= 0) throw new IllegalArgumentException("maxSize <= 0");
 
         D = max(2, degree);
         N = max(D + 1, maxSize);
+        shift = Integer.bitCount(D) == 1 ? Integer.numberOfTrailingZeros(D) : -1;
+        this.growable = growable;
 
         im = new int[N];
         pm = new int[N];
-        child = new int[N];
-        parent = new int[N];
         values = new Object[N];
-
-        for (int i = 0; i < N; i++) {
-            parent[i] = (i - 1) / D;
-            child[i] = i * D + 1;
-            pm[i] = im[i] = -1;
-        }
+        Arrays.fill(pm, -1);
+        Arrays.fill(im, -1);
     }
 
     public int size() {
@@ -76,7 +91,7 @@ public class MinIndexedDHeap<T extends Comparable<T>> {
 
     public boolean contains(int ki) {
         keyInBoundsOrThrow(ki);
-        return pm[ki] != -1;
+        return ki < N && pm[ki] != -1;
     }
 
     public int peekMinKeyIndex() {
@@ -105,12 +120,51 @@ public class MinIndexedDHeap<T extends Comparable<T>> {
     public void insert(int ki, T value) {
         if (contains(ki)) throw new IllegalArgumentException("index already exists; received: " + ki);
         valueNotNullOrThrow(value);
+        if (ki >= N) grow(ki);
         pm[ki] = sz;
         im[sz] = ki;
         values[ki] = value;
         swim(sz++);
     }
 
+    // Inserts kis[i] with values[i] for every i. The keys are appended, then
+    // a small batch is swum up one key at a time and a large one is merged by
+    // rebuilding the whole heap bottom up, O(k + n) instead of O(k*log(n))
+    public void insertAll(int[] kis, T[] values) {
+        if (kis.length != values.length) throw new IllegalArgumentException("kis and values have different lengths");
+        int k = kis.length;
+        for (int i = 0; i < k; i++) {
+            if (contains(kis[i])) throw new IllegalArgumentException("index already exists; received: " + kis[i]);
+            valueNotNullOrThrow(values[i]);
+        }
+
+        final int oldSz = sz;
+        for (int i = 0; i < k; i++) {
+            int ki = kis[i];
+            if (ki >= N) grow(ki);
+            if (pm[ki] != -1) {
+                // A key index repeated within the batch, undo the batch
+                for (int j = oldSz; j < sz; j++) {
+                    this.values[im[j]] = null;
+                    pm[im[j]] = -1;
+                    im[j] = -1;
+                }
+                sz = oldSz;
+                throw new IllegalArgumentException("index already exists; received: " + ki);
+            }
+            pm[ki] = sz;
+            im[sz++] = ki;
+            this.values[ki] = values[i];
+        }
+
+        int log = 32 - Integer.numberOfLeadingZeros(sz);
+        if ((long) k * log <= 2L * sz) {
+            for (int i = oldSz; i < sz; i++) swim(i);
+        } else {
+            heapify();
+        }
+    }
+
     @SuppressWarnings("unchecked")
     public T valueOf(int ki) {
         keyExistsOrThrow(ki);
@@ -151,6 +205,25 @@ public class MinIndexedDHeap<T extends Comparable<T>> {
         }
     }
 
+    // Applies decrease(kis[i], values[i]) for every i. A small batch swims each
+    // key, a large one only stores the new values and then rebuilds the whole
+    // heap bottom up in a single O(n) pass
+    public void decreaseAll(int[] kis, T[] values) {
+        if (kis.length != values.length) throw new IllegalArgumentException("kis and values have different lengths");
+        int k = kis.length;
+        for (int i = 0; i < k; i++) keyExistsAndValueNotNullOrThrow(kis[i], values[i]);
+
+        int log = 32 - Integer.numberOfLeadingZeros(sz);
+        if ((long) k * log <= 2L * sz) {
+            for (int i = 0; i < k; i++) decrease(kis[i], values[i]);
+            return;
+        }
+
+        for (int i = 0; i < k; i++)
+            if (less(values[i], this.values[kis[i]])) this.values[kis[i]] = values[i];
+        heapify();
+    }
+
     // Strictly increases the value associated with 'ki' to 'value'
     public void increase(int ki, T value) {
         keyExistsAndValueNotNullOrThrow(ki, value);
@@ -162,6 +235,11 @@ public class MinIndexedDHeap<T extends Comparable<T>> {
 
     /* Helper functions */
 
+    // Floyd's heapify process: sink every non leaf node from the bottom up, O(n)
+    private void heapify() {
+        for (int i = parent(sz - 1); i >= 0; i--) sink(i);
+    }
+
     private void sink(int i) {
         for (int j = minChild(i); j != -1; ) {
             swap(i, j);
@@ -171,15 +249,15 @@ public class MinIndexedDHeap<T extends Comparable<T>> {
     }
 
     private void swim(int i) {
-        while (less(i, parent[i])) {
-            swap(i, parent[i]);
-            i = parent[i];
+        for (int p = parent(i); i > 0 && less(i, p); p = parent(i)) {
+            swap(i, p);
+            i = p;
         }
     }
 
     // From the parent node at index i find the minimum child below it
     private int minChild(int i) {
-        int index = -1, from = child[i], to = min(sz, from + D);
+        int index = -1, from = child(i), to = min(sz, from + D);
         for (int j = from; j < to; j++) if (less(j, i)) index = i = j;
         return index;
     }
@@ -203,6 +281,25 @@ public class MinIndexedDHeap<T extends Comparable<T>> {
         return ((Comparable<? super T>) obj1).compareTo((T) obj2) < 0;
     }
 
+    private int child(int i) {
+        return shift >= 0 ? (i << shift) + 1 : i * D + 1;
+    }
+
+    private int parent(int i) {
+        return shift >= 0 ? (i - 1) >> shift : (i - 1) / D;
+    }
+
+    // Grows pm, im and values to fit key index ki, at least doubling them.
+    private void grow(int ki) {
+        int capacity = (int) min(Integer.MAX_VALUE - 8, max(ki + 1L, 2L * N));
+        pm = Arrays.copyOf(pm, capacity);
+        im = Arrays.copyOf(im, capacity);
+        values = Arrays.copyOf(values, capacity);
+        Arrays.fill(pm, N, capacity, -1);
+        Arrays.fill(im, N, capacity, -1);
+        N = capacity;
+    }
+
     @Override
     public String toString() {
         List<Integer> lst = new ArrayList<>(sz);
@@ -230,7 +327,7 @@ public class MinIndexedDHeap<T extends Comparable<T>> {
     }
 
     private void keyInBoundsOrThrow(int ki) {
-        if (ki < 0 || ki >= N)
+        if (ki < 0 || (ki >= N && !growable))
             throw new IllegalArgumentException("Key index out of bounds; received: " + ki);
     }
 
@@ -243,7 +340,7 @@ public class MinIndexedDHeap<T extends Comparable<T>> {
     }
 
     private boolean isMinHeap(int i) {
-        int from = child[i], to = min(sz, from + D);
+        int from = child(i), to = min(sz, from + D);
         for (int j = from; j < to; j++) {
             if (!less(i, j)) return false;
             if (!isMinHeap(j)) return false;
@@ -0,0 +1,273 @@
+/**
+ * An indexed min D-ary heap priority queue with primitive double values.
+ *
+ * <p>It works like {@link MinIndexedDHeap}, with the same position map 'pm' and inverse map 'im',
+ * but the values live in a double[] indexed by key index. A comparison is a plain double
+ * comparison instead of a compareTo call on two boxed values, and 'swim' and 'sink' move a hole
+ * through the heap while the moving key and its value are kept in locals, so 'decrease' is a tight
+ * primitive loop. NaN has no place in that order and is rejected.
+ *
+ * <p>As convention, I denote 'ki' as the index value in the domain [0, N) associated with a key k,
+ * therefore: ki = map[k]
+ */
+package com.tirkishovkadyr.datastructure;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+public class MinIndexedDoubleDHeap {
+
+    // Current number of elements in the heap.
+    private int sz;
+
+    // Maximum number of elements in the heap, the current capacity of a growable heap.
+    private int N;
+
+    // The degree of every node in the heap.
+    private final int D;
+
+    // log2(D) if D is a power of two, in which case the child and parent
+    // indexes are computed with shifts instead of a multiplication and a
+    // division, -1 otherwise.
+    private final int shift;
+
+    // Whether the arrays grow to fit any key index instead of having a fixed size.
+    private final boolean growable;
+
+    // The Position Map (pm) maps Key Indexes (ki) to where the position of that
+    // key is represented in the priority queue in the domain [0, sz).
+    private int[] pm;
+
+    // The Inverse Map (im) stores the indexes of the keys in the range
+    // [0, sz) which make up the priority queue. It should be noted that
+    // 'im' and 'pm' are inverses of each other, so: pm[im[i]] = im[pm[i]] = i
+    private int[] im;
+
+    // The values associated with the keys, indexed by the key indexes (aka 'ki').
+    private double[] values;
+
+    // Initializes a D-ary heap with a maximum capacity of maxSize.
+    public MinIndexedDoubleDHeap(int degree, int maxSize) {
+        this(degree, maxSize, false);
+    }
+
+    // Initializes a D-ary heap which grows to fit any non negative key index.
+    public MinIndexedDoubleDHeap(int degree) {
+        this(degree, 1, true);
+    }
+
+    private MinIndexedDoubleDHeap(int degree, int maxSize, boolean growable) {
+        if (maxSize <= 0) throw new IllegalArgumentException("maxSize <= 0");
+
+        D = max(2, degree);
+        N = max(D + 1, maxSize);
+        shift = Integer.bitCount(D) == 1 ? Integer.numberOfTrailingZeros(D) : -1;
+        this.growable = growable;
+
+        im = new int[N];
+        pm = new int[N];
+        values = new double[N];
+        Arrays.fill(pm, -1);
+        Arrays.fill(im, -1);
+    }
+
+    public int size() {
+        return sz;
+    }
+
+    public boolean isEmpty() {
+        return sz == 0;
+    }
+
+    public boolean contains(int ki) {
+        keyInBoundsOrThrow(ki);
+        return ki < N && pm[ki] != -1;
+    }
+
+    public int peekMinKeyIndex() {
+        isNotEmptyOrThrow();
+        return im[0];
+    }
+
+    public int pollMinKeyIndex() {
+        int minki = peekMinKeyIndex();
+        delete(minki);
+        return minki;
+    }
+
+    public double peekMinValue() {
+        isNotEmptyOrThrow();
+        return values[im[0]];
+    }
+
+    public double pollMinValue() {
+        double minValue = peekMinValue();
+        delete(peekMinKeyIndex());
+        return minValue;
+    }
+
+    public void insert(int ki, double value) {
+        if (contains(ki)) throw new IllegalArgumentException("index already exists; received: " + ki);
+        valueNotNaNOrThrow(value);
+        if (ki >= N) grow(ki);
+        values[ki] = value;
+        swim(sz++, ki);
+    }
+
+    public double valueOf(int ki) {
+        keyExistsOrThrow(ki);
+        return values[ki];
+    }
+
+    public double delete(int ki) {
+        keyExistsOrThrow(ki);
+        final int i = pm[ki];
+        final int lastki = im[--sz];
+        pm[ki] = -1;
+        im[sz] = -1;
+        if (i != sz) {
+            // Fill the hole with the last key, which may need to go either way
+            sink(i, lastki);
+            if (pm[lastki] == i) swim(i, lastki);
+        }
+        return values[ki];
+    }
+
+    public double update(int ki, double value) {
+        keyExistsOrThrow(ki);
+        valueNotNaNOrThrow(value);
+        double oldValue = values[ki];
+        values[ki] = value;
+        if (value < oldValue) swim(pm[ki], ki);
+        else sink(pm[ki], ki);
+        return oldValue;
+    }
+
+    // Strictly decreases the value associated with 'ki' to 'value'
+    public void decrease(int ki, double value) {
+        keyExistsOrThrow(ki);
+        valueNotNaNOrThrow(value);
+        if (value < values[ki]) {
+            values[ki] = value;
+            swim(pm[ki], ki);
+        }
+    }
+
+    // Strictly increases the value associated with 'ki' to 'value'
+    public void increase(int ki, double value) {
+        keyExistsOrThrow(ki);
+        valueNotNaNOrThrow(value);
+        if (values[ki] < value) {
+            values[ki] = value;
+            sink(pm[ki], ki);
+        }
+    }
+
+    /* Helper functions */
+
+    // Moves key 'ki' up from position i, shifting larger parents down into the hole
+    private void swim(int i, int ki) {
+        final double value = values[ki];
+        while (i > 0) {
+            int p = parent(i), pki = im[p];
+            if (values[pki] <= value) break;
+            im[i] = pki;
+            pm[pki] = i;
+            i = p;
+        }
+        im[i] = ki;
+        pm[ki] = i;
+    }
+
+    // Moves key 'ki' down from position i, shifting smaller children up into the hole
+    private void sink(int i, int ki) {
+        final double value = values[ki];
+        while (true) {
+            int from = child(i), to = min(sz, from + D);
+            if (from >= to) break;
+            int minPos = from;
+            double minValue = values[im[from]];
+            for (int j = from + 1; j < to; j++) {
+                double v = values[im[j]];
+                if (v < minValue) {
+                    minPos = j;
+                    minValue = v;
+                }
+            }
+            if (value <= minValue) break;
+            int cki = im[minPos];
+            im[i] = cki;
+            pm[cki] = i;
+            i = minPos;
+        }
+        im[i] = ki;
+        pm[ki] = i;
+    }
+
+    private int child(int i) {
+        return shift >= 0 ? (i << shift) + 1 : i * D + 1;
+    }
+
+    private int parent(int i) {
+        return shift >= 0 ? (i - 1) >> shift : (i - 1) / D;
+    }
+
+    // Grows pm, im and values to fit key index ki, at least doubling them.
+    private void grow(int ki) {
+        int capacity = (int) min(Integer.MAX_VALUE - 8, max(ki + 1L, 2L * N));
+        pm = Arrays.copyOf(pm, capacity);
+        im = Arrays.copyOf(im, capacity);
+        values = Arrays.copyOf(values, capacity);
+        Arrays.fill(pm, N, capacity, -1);
+        Arrays.fill(im, N, capacity, -1);
+        N = capacity;
+    }
+
+    @Override
+    public String toString() {
+        List<Integer> lst = new ArrayList<>(sz);
+        for (int i = 0; i < sz; i++) lst.add(im[i]);
+        return lst.toString();
+    }
+
+    /* Helper functions to make the code more readable. */
+
+    private void isNotEmptyOrThrow() {
+        if (isEmpty()) throw new NoSuchElementException("Priority queue underflow");
+    }
+
+    private void keyExistsOrThrow(int ki) {
+        if (!contains(ki)) throw new NoSuchElementException("Index does not exist; received: " + ki);
+    }
+
+    private void valueNotNaNOrThrow(double value) {
+        if (Double.isNaN(value)) throw new IllegalArgumentException("value cannot be NaN");
+    }
+
+    private void keyInBoundsOrThrow(int ki) {
+        if (ki < 0 || (ki >= N && !growable))
+            throw new IllegalArgumentException("Key index out of bounds; received: " + ki);
+    }
+
+    /* Test functions */
+
+    // Recursively checks if this heap is a min heap. This method is used
+    // for testing purposes to validate the heap invariant.
+    public boolean isMinHeap() {
+        return isMinHeap(0);
+    }
+
+    private boolean isMinHeap(int i) {
+        int from = child(i), to = min(sz, from + D);
+        for (int j = from; j < to; j++) {
+            if (values[im[j]] < values[im[i]]) return false;
+            if (!isMinHeap(j)) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,120 @@
+package com.tirkishovkadyr.datastructure;
+
+/*
+ * A concurrent relaxed min priority queue (a MultiQueue).
+ *
+ * The elements are spread over c * P sequential heaps (P threads, c a small
+ * constant), each guarded by its own lock. 'add' pushes to a random heap
+ * whose lock is free. 'poll' samples two random heaps, reads their minimums
+ * without locking and pops from the one with the smaller minimum. Threads
+ * rarely contend for the same lock, so throughput scales with the number of
+ * cores.
+ *
+ * The price is precision: 'poll' does not always return the global minimum
+ * but an element whose rank among the queued elements is small on average
+ * (O(c * P) in expectation). 'isEmpty' and 'size' are likewise only exact
+ * when no other thread is modifying the queue.
+ */
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class MultiQueue <T extends Comparable<T>> {
+
+    private static final int DEFAULT_QUEUES_PER_THREAD = 2;
+
+    // A sequential heap with its lock. 'top' and 'size' mirror the heap so
+    // that other threads can inspect the heap without taking its lock
+    private static final class SubQueue<T extends Comparable<T>> {
+        final ReentrantLock lock = new ReentrantLock();
+        final DaryPQueue<T> heap = new DaryPQueue<>(4);
+        volatile T top;
+        volatile int size;
+
+        void publish() {
+            top = heap.peek();
+            size = heap.size();
+        }
+    }
+
+    private final SubQueue<T>[] queues;
+
+    // A queue with twice as many sub-queues as there are processors
+    public MultiQueue() {
+        this(DEFAULT_QUEUES_PER_THREAD * Runtime.getRuntime().availableProcessors());
+    }
+
+    @SuppressWarnings("unchecked")
+    public MultiQueue(int queueCount) {
+        if (queueCount < 2) throw new IllegalArgumentException("Illegal queueCount: " + queueCount);
+        queues = (SubQueue<T>[]) new SubQueue<?>[queueCount];
+        for (int i = 0; i < queueCount; i++) queues[i] = new SubQueue<>();
+    }
+
+    // Adds an element to a random sub-queue whose lock is free, O(log(n))
+    public void add(T elem) {
+        if (elem == null) throw new IllegalArgumentException();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        while (true) {
+            SubQueue<T> queue = queues[random.nextInt(queues.length)];
+            if (!queue.lock.tryLock()) continue;
+            try {
+                queue.heap.add(elem);
+                queue.publish();
+                return;
+            } finally {
+                queue.lock.unlock();
+            }
+        }
+    }
+
+    // Removes an element of low rank: the smaller of the minimums of two random
+    // sub-queues. Returns null only if every sub-queue was seen empty, O(log(n))
+    public T poll() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        for (int attempts = 0; ; attempts++) {
+            SubQueue<T> a = queues[random.nextInt(queues.length)];
+            SubQueue<T> b = queues[random.nextInt(queues.length)];
+            T topA = a.top, topB = b.top;
+
+            if (topA == null && topB == null) {
+                // Both samples were empty, which is only a hint that the queue is
+                // empty. Look through all the sub-queues before giving up
+                if (attempts >= 2 && isEmpty()) return null;
+                continue;
+            }
+
+            SubQueue<T> queue = (topB == null || (topA != null && topA.compareTo(topB) <= 0)) ? a : b;
+            if (!queue.lock.tryLock()) continue;
+            try {
+                // Another thread may have emptied it since we looked
+                if (queue.heap.isEmpty()) continue;
+                T elem = queue.heap.poll();
+                queue.publish();
+                return elem;
+            } finally {
+                queue.lock.unlock();
+            }
+        }
+    }
+
+    // Returns true if all the sub-queues are empty
+    public boolean isEmpty() {
+        for (SubQueue<T> queue : queues)
+            if (queue.size != 0) return false;
+        return true;
+    }
+
+    // Returns the number of elements, exact only in the absence of concurrent updates
+    public int size() {
+        int size = 0;
+        for (SubQueue<T> queue : queues) size += queue.size;
+        return size;
+    }
+
+    public int queueCount() {
+        return queues.length;
+    }
+}
@@ -0,0 +1,396 @@
+package com.tirkishovkadyr.datastructure;
+
+/*
+  A hash-table mapping byte[] keys to byte[] values which keeps all of its
+  contents in direct (off-heap) memory, so that the garbage collector only
+  ever sees a handful of objects no matter how many entries are stored.
+
+  The store is made of two parts:
+
+  - The index, an open addressing table using linear probing. Each slot is
+    16 bytes: the location of the record (0 for an empty slot) followed by
+    the low 32 bits of the key hash. Deletions shift the following entries
+    back instead of leaving tombstones, so probe sequences never degrade.
+
+  - The data, a list of fixed size direct chunks to which records are
+    appended. A record is [key length][value capacity][value length]
+    followed by the key bytes and then the value bytes.
+
+  Both the number of entries and the total amount of direct memory are
+  bounded when the store is created. Values are updated in place when the
+  new value fits in the old record, otherwise a new record is appended.
+  The bytes of removed and replaced records are not reused, 'deadBytes'
+  tells how many there are so that the owner can decide when to rebuild.
+
+  Direct memory is returned to the system once the store is closed and its
+  buffers have been collected.
+
+  A snapshot of the store is the index followed by the data chunks exactly
+  as they are laid out in memory. Mapping a snapshot back ('map') makes the
+  store usable immediately, without reading or rehashing a single entry.
+ */
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+public class OffHeapHashStore implements AutoCloseable {
+
+    private static final int SLOT_BYTES = 16, HEADER_BYTES = 12;
+    private static final int MAX_CHUNK_SIZE = 1 << 26;
+    private static final int MAX_SLOTS = 1 << 26; // Keeps the index within one 1GB buffer
+    private static final double LOAD_FACTOR = 0.75;
+    private static final int SNAPSHOT_MAGIC = 0x4f484853, SNAPSHOT_VERSION = 1, SNAPSHOT_HEADER_BYTES = 52;
+
+    // Reads eight bytes of a byte[] at once
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private static final long SEED = 0x9E3779B97F4A7C15L;
+    private static final long C1 = 0x87c37b91114253d5L, C2 = 0x4cf5ad432745937fL;
+
+    private final int maxEntries, mask, chunkSize;
+    private final long memoryBudget;
+
+    private ByteBuffer index;
+    private List<ByteBuffer> chunks = new ArrayList<>();
+
+    // The number of keys, the bytes allocated so far and the bytes lost to replaced records
+    private int size = 0;
+    private long allocatedBytes, deadBytes = 0;
+
+    // The global position at which the next record is appended
+    private long writePosition = 0;
+
+    // Creates a store holding up to 'maxEntries' keys and using at
+    // most 'memoryBudget' bytes of direct memory for the index and data
+    public OffHeapHashStore(int maxEntries, long memoryBudget) {
+
+        if (maxEntries <= 0)
+            throw new IllegalArgumentException("Illegal maxEntries: " + maxEntries);
+
+        long slots = Long.highestOneBit((long) Math.ceil(maxEntries / LOAD_FACTOR) - 1) << 1;
+        if (slots > MAX_SLOTS)
+            throw new IllegalArgumentException("Too many entries: " + maxEntries);
+
+        long indexBytes = Math.max(2, slots) * SLOT_BYTES;
+        if (memoryBudget <= indexBytes)
+            throw new IllegalArgumentException("Memory budget too small for the index: " + memoryBudget);
+
+        this.maxEntries = maxEntries;
+        this.memoryBudget = memoryBudget;
+        mask = (int) (indexBytes / SLOT_BYTES) - 1;
+        chunkSize = (int) Math.min(MAX_CHUNK_SIZE, memoryBudget - indexBytes);
+
+        index = ByteBuffer.allocateDirect((int) indexBytes).order(ByteOrder.LITTLE_ENDIAN);
+        allocatedBytes = indexBytes;
+    }
+
+    // Creates a store on top of the buffers of a mapped snapshot
+    private OffHeapHashStore(int maxEntries, long memoryBudget, int mask, int chunkSize, ByteBuffer index) {
+        this.maxEntries = maxEntries;
+        this.memoryBudget = memoryBudget;
+        this.mask = mask;
+        this.chunkSize = chunkSize;
+        this.index = index;
+        allocatedBytes = index.capacity();
+    }
+
+    // A 64 bit hash of the key in the style of MurmurHash3, consuming eight bytes per round
+    private static long hash(byte[] key) {
+        long h = SEED ^ key.length;
+        int i = 0;
+        for (; i + 8 <= key.length; i += 8) {
+            h ^= mixKey((long) LONGS.get(key, i));
+            h = Long.rotateLeft(h, 27) * 5 + 0x52dce729;
+        }
+        long tail = 0;
+        for (int j = key.length - 1; j >= i; j--) tail = (tail << 8) | (key[j] & 0xff);
+        h ^= mixKey(tail);
+
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static long mixKey(long k) {
+        return Long.rotateLeft(k * C1, 31) * C2;
+    }
+
+    // Returns the number of keys in the store
+    public int size() {
+        openOrThrow();
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    // The maximum number of keys this store can hold
+    public int capacity() {
+        return maxEntries;
+    }
+
+    // Bytes of direct memory allocated so far, never more than the budget
+    public long memoryUsed() {
+        return allocatedBytes;
+    }
+
+    public long memoryBudget() {
+        return memoryBudget;
+    }
+
+    // Bytes taken by records which were removed or outgrown by their values
+    public long deadBytes() {
+        return deadBytes;
+    }
+
+    public boolean containsKey(byte[] key) {
+        if (key == null) throw new IllegalArgumentException("Null key");
+        return findSlot(key, (int) hash(key)) >= 0;
+    }
+
+    // Returns a copy of the value of the key, or null if the key does not exist
+    public byte[] get(byte[] key) {
+        if (key == null) throw new IllegalArgumentException("Null key");
+        int slot = findSlot(key, (int) hash(key));
+        if (slot < 0) return null;
+
+        long record = recordOf(slot);
+        ByteBuffer chunk = chunkOf(record);
+        int pos = positionOf(record);
+        byte[] value = new byte[chunk.getInt(pos + 8)];
+        chunk.get(pos + HEADER_BYTES + chunk.getInt(pos), value);
+        return value;
+    }
+
+    // Maps the key to the value. Returns true if the key was not in the store
+    // before. Both arrays are copied so the caller may reuse them afterwards
+    public boolean put(byte[] key, byte[] value) {
+        if (key == null) throw new IllegalArgumentException("Null key");
+        if (value == null) throw new IllegalArgumentException("Null value");
+
+        final int tag = (int) hash(key);
+        int slot = findSlot(key, tag);
+
+        if (slot >= 0) {
+            long record = recordOf(slot);
+            ByteBuffer chunk = chunkOf(record);
+            int pos = positionOf(record);
+            int keyLength = chunk.getInt(pos), valueCapacity = chunk.getInt(pos + 4);
+
+            // The new value fits into the existing record
+            if (value.length <= valueCapacity) {
+                chunk.putInt(pos + 8, value.length);
+                chunk.put(pos + HEADER_BYTES + keyLength, value);
+                return false;
+            }
+
+            index.putLong(slot * SLOT_BYTES, append(key, value) + 1);
+            deadBytes += HEADER_BYTES + keyLength + valueCapacity;
+            return false;
+        }
+
+        if (size == maxEntries) throw new IllegalStateException("Store is full: " + maxEntries + " entries");
+
+        // The probe ended at the empty slot -(slot + 1)
+        slot = -slot - 1;
+        index.putLong(slot * SLOT_BYTES, append(key, value) + 1);
+        index.putInt(slot * SLOT_BYTES + 8, tag);
+        size++;
+        return true;
+    }
+
+    // Removes the key from the store, returns true if it was present
+    public boolean remove(byte[] key) {
+        if (key == null) throw new IllegalArgumentException("Null key");
+        int slot = findSlot(key, (int) hash(key));
+        if (slot < 0) return false;
+
+        long record = recordOf(slot);
+        ByteBuffer chunk = chunkOf(record);
+        int pos = positionOf(record);
+        deadBytes += HEADER_BYTES + chunk.getInt(pos) + chunk.getInt(pos + 4);
+
+        // Backward shift deletion: pull every following entry of the cluster
+        // which may not be placed after the hole back into the hole
+        int hole = slot;
+        for (int i = (slot + 1) & mask; recordOf(i) != 0; i = (i + 1) & mask) {
+            int home = index.getInt(i * SLOT_BYTES + 8) & mask;
+            boolean movable = (hole <= i) ? (home <= hole || home > i) : (home <= hole && home > i);
+            if (movable) {
+                index.putLong(hole * SLOT_BYTES, recordOf(i));
+                index.putInt(hole * SLOT_BYTES + 8, index.getInt(i * SLOT_BYTES + 8));
+                hole = i;
+            }
+        }
+        index.putLong(hole * SLOT_BYTES, 0L);
+        index.putInt(hole * SLOT_BYTES + 8, 0);
+
+        size--;
+        return true;
+    }
+
+    // Writes the index and the data chunks to the file in one sequential pass
+    public void writeSnapshot(Path path) throws IOException {
+        openOrThrow();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+
+            ByteBuffer header = ByteBuffer.allocate(SNAPSHOT_HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(SNAPSHOT_MAGIC).putInt(SNAPSHOT_VERSION)
+                  .putInt(maxEntries).putLong(memoryBudget).putInt(mask).putInt(chunkSize)
+                  .putInt(size).putLong(writePosition).putLong(deadBytes).putInt(chunks.size());
+            writeFully(channel, header.flip());
+            writeFully(channel, index.duplicate().clear());
+            for (ByteBuffer chunk : chunks) writeFully(channel, chunk.duplicate().clear());
+        }
+    }
+
+    // Maps a snapshot written by 'writeSnapshot' back into memory. The mapping is
+    // private: the store can be modified but the changes never reach the file.
+    // A private mapping still requires the file to be writable
+    public static OffHeapHashStore map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+
+            ByteBuffer header = ByteBuffer.allocate(SNAPSHOT_HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining()) if (channel.read(header) < 0) throw new IOException("Truncated snapshot");
+            header.flip();
+            if (header.getInt() != SNAPSHOT_MAGIC || header.getInt() != SNAPSHOT_VERSION)
+                throw new IOException("Not an off-heap hash store snapshot");
+
+            int maxEntries = header.getInt();
+            long memoryBudget = header.getLong();
+            int mask = header.getInt(), chunkSize = header.getInt(), size = header.getInt();
+            long writePosition = header.getLong(), deadBytes = header.getLong();
+            int chunkCount = header.getInt();
+
+            // The index must be a power of two number of slots with room for
+            // 'maxEntries' keys, or the probe loops could skip slots or never
+            // meet an empty one. The records must lie within the chunks, which
+            // must fit in the budget
+            long slots = (long) mask + 1;
+            if (slots < 2 || slots > MAX_SLOTS || (slots & mask) != 0
+                    || maxEntries <= 0 || maxEntries > slots * LOAD_FACTOR
+                    || size < 0 || size > maxEntries
+                    || chunkSize <= 0 || chunkSize > MAX_CHUNK_SIZE || chunkCount < 0)
+                throw new IOException("Corrupted snapshot");
+
+            long indexBytes = slots * SLOT_BYTES, dataBytes = (long) chunkCount * chunkSize;
+            if (memoryBudget < indexBytes + dataBytes
+                    || writePosition < 0 || writePosition > dataBytes
+                    || deadBytes < 0 || deadBytes > writePosition
+                    || channel.size() != SNAPSHOT_HEADER_BYTES + indexBytes + dataBytes)
+                throw new IOException("Corrupted snapshot");
+
+            long position = SNAPSHOT_HEADER_BYTES;
+            ByteBuffer index = channel.map(FileChannel.MapMode.PRIVATE, position, indexBytes).order(ByteOrder.LITTLE_ENDIAN);
+            OffHeapHashStore store = new OffHeapHashStore(maxEntries, memoryBudget, mask, chunkSize, index);
+
+            for (position += indexBytes; position < channel.size(); position += chunkSize) {
+                store.chunks.add(channel.map(FileChannel.MapMode.PRIVATE, position, chunkSize).order(ByteOrder.LITTLE_ENDIAN));
+                store.allocatedBytes += chunkSize;
+            }
+            store.size = size;
+            store.writePosition = writePosition;
+            store.deadBytes = deadBytes;
+            return store;
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) channel.write(buffer);
+    }
+
+    // Releases the buffers held by the store. Any further use throws
+    @Override
+    public void close() {
+        index = null;
+        chunks = null;
+        size = 0;
+    }
+
+    // Probes for the key. Returns its slot if found, otherwise -(slot + 1)
+    // where 'slot' is the empty slot which ended the probe sequence
+    private int findSlot(byte[] key, int tag) {
+        openOrThrow();
+
+        for (int i = tag & mask; ; i = (i + 1) & mask) {
+            long record = recordOf(i);
+            if (record == 0) return -i - 1;
+            if (index.getInt(i * SLOT_BYTES + 8) == tag && keyEquals(record, key)) return i;
+        }
+    }
+
+    // Compares the key of a record with the given key, eight bytes at a time
+    private boolean keyEquals(long record, byte[] key) {
+        ByteBuffer chunk = chunkOf(record);
+        int pos = positionOf(record);
+        if (chunk.getInt(pos) != key.length) return false;
+
+        pos += HEADER_BYTES;
+        int i = 0;
+        for (; i + 8 <= key.length; i += 8)
+            if (chunk.getLong(pos + i) != (long) LONGS.get(key, i)) return false;
+        for (; i < key.length; i++)
+            if (chunk.get(pos + i) != key[i]) return false;
+        return true;
+    }
+
+    // Appends a new record and returns its global position
+    private long append(byte[] key, byte[] value) {
+        int length = HEADER_BYTES + key.length + value.length;
+        if (length > chunkSize)
+            throw new IllegalArgumentException("Entry of " + length + " bytes exceeds the chunk size " + chunkSize);
+
+        // Records never straddle two chunks
+        int pos = (int) (writePosition % chunkSize);
+        if (writePosition == (long) chunks.size() * chunkSize || pos + length > chunkSize) {
+            if (allocatedBytes + chunkSize > memoryBudget)
+                throw new IllegalStateException("Memory budget of " + memoryBudget + " bytes exhausted");
+            chunks.add(ByteBuffer.allocateDirect(chunkSize).order(ByteOrder.LITTLE_ENDIAN));
+            allocatedBytes += chunkSize;
+            deadBytes += (pos == 0) ? 0 : chunkSize - pos;
+            writePosition = (long) (chunks.size() - 1) * chunkSize;
+            pos = 0;
+        }
+
+        ByteBuffer chunk = chunks.get(chunks.size() - 1);
+        chunk.putInt(pos, key.length);
+        chunk.putInt(pos + 4, value.length);
+        chunk.putInt(pos + 8, value.length);
+        chunk.put(pos + HEADER_BYTES, key);
+        chunk.put(pos + HEADER_BYTES + key.length, value);
+
+        long record = writePosition;
+        writePosition += length;
+        return record;
+    }
+
+    // Returns the global position of the record in a slot plus one, or 0 if the slot is empty
+    private long recordOf(int slot) {
+        return index.getLong(slot * SLOT_BYTES);
+    }
+
+    private ByteBuffer chunkOf(long record) {
+        return chunks.get((int) ((record - 1) / chunkSize));
+    }
+
+    private int positionOf(long record) {
+        return (int) ((record - 1) % chunkSize);
+    }
+
+    private void openOrThrow() {
+        if (index == null) throw new IllegalStateException("Store is closed");
+    }
+}
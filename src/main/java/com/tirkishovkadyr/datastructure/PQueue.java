@@ -22,8 +22,11 @@ public class PQueue <T extends Comparable<T>> {
     // This map keeps track to the possible idices a particular
     // node value is found in the heap. Having this mapping lets
     // us have O(log(n)) removals and 0(1) element containment check
-    // at the cost of some additional space and minor overhead
-    private Map<T, TreeSet<Integer>> map = new HashMap<>();
+    // at the cost of some additional space and minor overhead.
+    // It is only built by the first call to 'contains' or 'remove',
+    // so heaps which never use them do not pay for it. For removals
+    // without any map see HandlePQueue
+    private Map<T, TreeSet<Integer>> map = null;
 
     // Construct and initially empty priority queue
     public PQueue() { this(1); }
@@ -42,19 +45,56 @@ public class PQueue <T extends Comparable<T>> {
 
         // Place all element in heap
         for (int i = 0; i < heapSize; i++) {
-            mapAdd(elems[i], i);
+            if (elems[i] == null) throw new IllegalArgumentException();
             heap.add(elems[i]);
         }
 
-        // Heapify process, O(n)
+        heapify();
+    }
+
+    // Priority queue construction using heapify, O(n)
+    public PQueue (Collection<T> elems) {
+        heap = new ArrayList<>(elems);
+        heapSize = heapCapacity = heap.size();
+        for (T elem : heap)
+            if (elem == null) throw new IllegalArgumentException();
+
+        heapify();
+    }
+
+    // Floyd's heapify process: sink every non leaf node from the bottom up, O(n)
+    private void heapify() {
         for (int i = Math.max(0, (heapSize/2) - 1); i >= 0; i--)
             sink(i);
     }
 
-    // Priority queue construction, O(nlog(n))
-    public PQueue (Collection<T> elems) {
-        this(elems.size());
-        for (T elem: elems) add(elem);
+    // Adds all the elements to the priority queue. Adding them one at a time costs up
+    // to k*log(n+k) comparisons for k elements while appending them all and running
+    // heapify costs about 2(n+k), so the cheaper of the two is picked. A null
+    // element is rejected before the queue is changed
+    public void addAll(Collection<? extends T> elems) {
+        int k = elems.size(), total = heapSize + k;
+        if (k == 0) return;
+        for (T elem : elems)
+            if (elem == null) throw new IllegalArgumentException();
+
+        int log = 32 - Integer.numberOfLeadingZeros(total);
+        if ((long) k * log <= 2L * total) {
+            for (T elem : elems) add(elem);
+            return;
+        }
+
+        for (T elem : elems) {
+            if (heapSize < heapCapacity) {
+                heap.set(heapSize, elem);
+            } else {
+                heap.add(elem);
+                heapCapacity++;
+            }
+            mapAdd(elem, heapSize++);
+        }
+
+        heapify();
     }
 
     // Return true/false depending on if the priority queue is empty
@@ -67,7 +107,7 @@ public class PQueue <T extends Comparable<T>> {
         for (int i = 0; i < heapCapacity; i++)
             heap.set(i, null);
         heapSize = 0;
-        map.clear();
+        map = null;
     }
 
     // Returns the size of the heap
@@ -94,6 +134,7 @@ public class PQueue <T extends Comparable<T>> {
 
         // Map lookup to check containment
         if (elem == null) return false;
+        buildMap();
         return map.containsKey(elem);
 
         // Linear scan to check containment, O(n)
@@ -200,6 +241,7 @@ public class PQueue <T extends Comparable<T>> {
         //          remove true;
 
         // Logarithmic removal with map, O(log(n))
+        buildMap();
         Integer index = mapGet(elem);
         if ( index != null ) removeAt(index);
         return index != null;
@@ -255,8 +297,16 @@ public class PQueue <T extends Comparable<T>> {
         return isMinHeap(left) && isMinHeap(right);
     }
 
+    // Builds the map from the current heap if it does not exist yet, O(nlog(n))
+    private void buildMap() {
+        if ( map != null ) return;
+        map = new HashMap<>();
+        for ( int i = 0; i < heapSize; i++ ) mapAdd(heap.get(i), i);
+    }
+
     // Add a node value its index to the map
     private void mapAdd(T value, int index) {
+        if ( map == null ) return;
         TreeSet<Integer> set = map.get(value);
 
         // New value being inserted in map
@@ -270,6 +320,7 @@ public class PQueue <T extends Comparable<T>> {
 
     // Removes the index at a given value, O(log(n))
     private void mapRemove(T value, int index) {
+        if ( map == null ) return;
         TreeSet<Integer> set = map.get(value);
         set.remove(index); // TreeSets take O(log(n)) removal time
         if ( set.size() == 0 ) map.remove(value);
@@ -286,6 +337,7 @@ public class PQueue <T extends Comparable<T>> {
 
     // Exchange the index of two nodes internally within the map
     private void mapSwap(T val1, T val2, int val1Index, int val2Index) {
+        if ( map == null ) return;
 
         Set<Integer> set1 = map.get(val1);
         Set<Integer> set2 = map.get(val2);
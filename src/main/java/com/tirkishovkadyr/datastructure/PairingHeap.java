@@ -0,0 +1,212 @@
+package com.tirkishovkadyr.datastructure;
+
+/*
+ * A min pairing heap: a heap ordered multiway tree in which every node points
+ * to its leftmost child and its right sibling.
+ *
+ * Two heaps are melded by making the root with the larger value the leftmost
+ * child of the other, so 'add', 'meld' and 'decreaseKey' are O(1). 'poll'
+ * removes the root and rebuilds the tree from its children with the two pass
+ * pairing strategy (link them in pairs from left to right, then fold the
+ * pairs from right to left), which is O(log(n)) amortized.
+ *
+ * 'add' returns the node of the element, which serves as a handle for
+ * 'decreaseKey' and 'remove' until the element leaves the heap or the heap is
+ * cleared. Only the heap holding the element accepts its handle. After
+ * 'meld(other)' the handles of the other heap belong to this heap.
+ */
+
+import java.util.NoSuchElementException;
+
+public class PairingHeap <T extends Comparable<T>> {
+
+    // A token standing for the heap a node belongs to. 'meld' forwards the
+    // other heap's token to this heap's and 'clear' replaces the token, so
+    // the handles of a cleared heap stop resolving to any heap
+    private static final class Owner {
+        private Owner forward;
+    }
+
+    public static final class Node<T> {
+        private T value;
+
+        // The leftmost child, the right sibling and either the left sibling
+        // or, for a leftmost child, the parent
+        private Node<T> child, next, prev;
+
+        // Null once the node has left the heap
+        private Owner owner;
+
+        private Node(T value) {
+            this.value = value;
+        }
+
+        public T value() {
+            return value;
+        }
+    }
+
+    private Node<T> root;
+    private int size = 0;
+    private Owner owner = new Owner();
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Clears the heap, all handles become invalid, O(1)
+    public void clear() {
+        root = null;
+        size = 0;
+        owner = new Owner();
+    }
+
+    // Returns the smallest element, null if the heap is empty, O(1)
+    public T peek() {
+        return isEmpty() ? null : root.value;
+    }
+
+    // Adds an element and returns its handle, the element must not be null, O(1)
+    public Node<T> add(T elem) {
+        if (elem == null) throw new IllegalArgumentException();
+        Node<T> node = new Node<>(elem);
+        node.owner = owner;
+        root = link(root, node);
+        size++;
+        return node;
+    }
+
+    // Removes and returns the smallest element, O(log(n)) amortized
+    public T poll() {
+        if (isEmpty()) return null;
+        Node<T> oldRoot = root;
+        root = combine(oldRoot.child);
+        size--;
+        detach(oldRoot);
+        return oldRoot.value;
+    }
+
+    // Tests if the handle's element is in this heap, O(1) unless the handle
+    // went through melds, O(log(m)) amortized over m melds
+    public boolean contains(Node<T> node) {
+        return node != null && node.owner != null && ownerOf(node) == owner;
+    }
+
+    // Lowers the value of the handle's element, O(1) amortized
+    public void decreaseKey(Node<T> node, T value) {
+        nodeInHeapOrThrow(node);
+        if (value == null) throw new IllegalArgumentException();
+        if (value.compareTo(node.value) > 0)
+            throw new IllegalArgumentException("New value " + value + " is greater than " + node.value);
+
+        node.value = value;
+        if (node == root) return;
+        cut(node);
+        root = link(root, node);
+    }
+
+    // Removes the handle's element from the heap, O(log(n)) amortized
+    public T remove(Node<T> node) {
+        nodeInHeapOrThrow(node);
+        if (node == root) return poll();
+
+        cut(node);
+        root = link(root, combine(node.child));
+        size--;
+        detach(node);
+        return node.value;
+    }
+
+    // Moves all the elements of the other heap into this one and leaves the
+    // other heap empty, O(1)
+    public void meld(PairingHeap<T> other) {
+        if (other == this) return;
+        root = link(root, other.root);
+        size += other.size;
+        other.owner.forward = owner;
+        other.clear();
+    }
+
+    // Makes the root with the larger value the leftmost child of the other
+    // and returns the new root. Both roots must be without siblings, O(1)
+    private Node<T> link(Node<T> a, Node<T> b) {
+        if (a == null) return b;
+        if (b == null) return a;
+        if (b.value.compareTo(a.value) < 0) {
+            Node<T> tmp = a;
+            a = b;
+            b = tmp;
+        }
+        b.prev = a;
+        b.next = a.child;
+        if (a.child != null) a.child.prev = b;
+        a.child = b;
+        return a;
+    }
+
+    // Unlinks a non root node, along with its subtree, from its parent and siblings
+    private void cut(Node<T> node) {
+        if (node.prev.child == node) node.prev.child = node.next;
+        else node.prev.next = node.next;
+        if (node.next != null) node.next.prev = node.prev;
+        node.next = node.prev = null;
+    }
+
+    // Melds a list of siblings into a single tree using the two pass
+    // pairing strategy and returns its root, O(log(n)) amortized
+    private Node<T> combine(Node<T> first) {
+        if (first == null) return null;
+
+        // First pass: link the siblings in pairs from left to right, pushing
+        // every pair onto a stack threaded through 'next'
+        Node<T> pairs = null;
+        while (first != null) {
+            Node<T> a = first, b = a.next;
+            first = b == null ? null : b.next;
+            a.next = a.prev = null;
+            if (b != null) {
+                b.next = b.prev = null;
+                a = link(a, b);
+            }
+            a.next = pairs;
+            pairs = a;
+        }
+
+        // Second pass: fold the pairs from right to left
+        Node<T> result = pairs;
+        pairs = pairs.next;
+        result.next = null;
+        while (pairs != null) {
+            Node<T> next = pairs.next;
+            pairs.next = null;
+            result = link(result, pairs);
+            pairs = next;
+        }
+        return result;
+    }
+
+    private void detach(Node<T> node) {
+        node.child = node.next = node.prev = null;
+        node.owner = null;
+    }
+
+    // Follows the forward links left by 'meld' to the token of the heap which
+    // owns the node, halving the path on the way
+    private static Owner ownerOf(Node<?> node) {
+        Owner o = node.owner;
+        while (o.forward != null) {
+            if (o.forward.forward != null) o.forward = o.forward.forward;
+            o = o.forward;
+        }
+        node.owner = o;
+        return o;
+    }
+
+    private void nodeInHeapOrThrow(Node<T> node) {
+        if (!contains(node)) throw new NoSuchElementException("Node is not in the heap");
+    }
+}
@@ -0,0 +1,139 @@
+package com.tirkishovkadyr.datastructure;
+
+/*
+ * A monotone min priority queue of (long key, int payload) pairs: a radix heap.
+ *
+ * It only works when the extracted keys never decrease, as in Dijkstra's
+ * algorithm or a discrete event simulation, which is enforced by rejecting
+ * keys smaller than the last extracted one. In exchange no keys are ever
+ * compared with each other. A pair goes to bucket b, the position of the
+ * highest bit in which its key differs from the last extracted key (bucket 0
+ * holds the keys equal to it). When bucket 0 runs empty, the first non empty
+ * bucket is emptied by moving its pairs to lower buckets relative to its
+ * smallest key, which becomes the new last key. Every pair can only move down
+ * and there are 65 buckets, so 'poll' is O(log(C)) amortized, where C is the
+ * largest difference between a key and the last extracted key, and 'add' is
+ * O(1).
+ *
+ * A payload is usually the index of a node or an event; object payloads can
+ * be kept in an array indexed by it. Peeking or polling an empty heap throws.
+ */
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+public class RadixHeap {
+
+    private static final int BUCKETS = 65;
+
+    // The keys and payloads of every bucket, the first 'sizes[b]' of which are in use
+    private final long[][] keys = new long[BUCKETS][];
+    private final int[][] payloads = new int[BUCKETS][];
+    private final int[] sizes = new int[BUCKETS];
+
+    // The number of pairs in the heap
+    private int size = 0;
+
+    // The last extracted key, the smallest key which can still be added
+    private long last;
+
+    // Construct an empty heap which accepts any key
+    public RadixHeap() {
+        this(Long.MIN_VALUE);
+    }
+
+    // Construct an empty heap which accepts keys starting from 'minKey'
+    public RadixHeap(long minKey) {
+        last = minKey;
+        for (int b = 0; b < BUCKETS; b++) {
+            keys[b] = new long[4];
+            payloads[b] = new int[4];
+        }
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Returns the last extracted key, no smaller key can be added
+    public long lastKey() {
+        return last;
+    }
+
+    // Clears the heap but keeps the last extracted key, O(1)
+    public void clear() {
+        Arrays.fill(sizes, 0);
+        size = 0;
+    }
+
+    // Adds a pair, the key must not be smaller than the last extracted key, O(1)
+    public void add(long key, int payload) {
+        if (key < last)
+            throw new IllegalArgumentException("Key " + key + " is smaller than the last extracted key " + last);
+        push(bucketOf(key), key, payload);
+        size++;
+    }
+
+    // Returns the smallest key, O(log(C)) amortized
+    public long peekKey() {
+        pull();
+        return last;
+    }
+
+    // Returns the payload of the smallest key, O(log(C)) amortized
+    public int peekPayload() {
+        pull();
+        return payloads[0][sizes[0] - 1];
+    }
+
+    // Removes the pair with the smallest key and returns its payload. Read the
+    // key with 'peekKey' or 'lastKey' if it is needed as well, O(log(C)) amortized
+    public int poll() {
+        pull();
+        size--;
+        return payloads[0][--sizes[0]];
+    }
+
+    // The bucket of a key: 0 if it equals the last extracted key, otherwise one
+    // plus the position of the highest bit in which they differ
+    private int bucketOf(long key) {
+        return 64 - Long.numberOfLeadingZeros(key ^ last);
+    }
+
+    private void push(int b, long key, int payload) {
+        int n = sizes[b];
+        if (n == keys[b].length) {
+            keys[b] = Arrays.copyOf(keys[b], n * 2);
+            payloads[b] = Arrays.copyOf(payloads[b], n * 2);
+        }
+        keys[b][n] = key;
+        payloads[b][n] = payload;
+        sizes[b] = n + 1;
+    }
+
+    // Makes sure bucket 0 is not empty by redistributing the first non empty
+    // bucket around its smallest key
+    private void pull() {
+        if (isEmpty()) throw new NoSuchElementException("Radix heap underflow");
+        if (sizes[0] > 0) return;
+
+        int b = 1;
+        while (sizes[b] == 0) b++;
+
+        long[] bucketKeys = keys[b];
+        int[] bucketPayloads = payloads[b];
+        int n = sizes[b];
+        long min = bucketKeys[0];
+        for (int i = 1; i < n; i++) min = Math.min(min, bucketKeys[i]);
+
+        // All the keys of bucket b agree with the new last key on every bit
+        // from b - 1 up, so they all move to lower buckets
+        last = min;
+        sizes[b] = 0;
+        for (int i = 0; i < n; i++) push(bucketOf(bucketKeys[i]), bucketKeys[i], bucketPayloads[i]);
+    }
+}
@@ -0,0 +1,108 @@
+package com.tirkishovkadyr.datastructure;
+
+/**
+ * A Fenwick Tree implementation which supports
+ * range updates and sum range queries
+ *
+ * Adding k to every index in [i, j] is recorded in the difference array d,
+ * where d[i] += k and d[j + 1] -= k, so that the value at index x is the
+ * prefix sum d[1] + ... + d[x]. The prefix sum of the values up to x is then
+ *
+ *   sum(d[t] * (x - t + 1)) = x * sum(d[t]) - sum(d[t] * (t - 1)),  t in [1, x]
+ *
+ * and both sums are kept in Fenwick trees of their own, 'b1' over d[t]
+ * and 'b2' over d[t] * (t - 1).
+ */
+
+public class RangeFenwickTree {
+
+    // The Fenwick trees over d[t] and d[t] * (t - 1), one based
+    private long[] b1, b2;
+
+    // Create a Fenwick tree of 'sz' zeros
+    public RangeFenwickTree(int sz) {
+        b1 = new long[sz + 1];
+        b2 = new long[sz + 1];
+    }
+
+    // Make sure the 'values' array is one based meaning
+    // values[0] does not used, O(n) construction
+    public RangeFenwickTree(long[] values) {
+        if (values == null)
+            throw new IllegalArgumentException("Values array cannot be null!");
+
+        int n = values.length;
+        b1 = new long[n];
+        b2 = new long[n];
+
+        // Fill in the difference array, then build both trees in place
+        for (int i = 1; i < n; i++) {
+            long d = values[i] - (i > 1 ? values[i - 1] : 0);
+            b1[i] = d;
+            b2[i] = d * (i - 1);
+        }
+        for (int i = 1; i < n; i++) {
+            int j = i + lsb(i);
+            if (j < n) {
+                b1[j] += b1[i];
+                b2[j] += b2[i];
+            }
+        }
+    }
+
+    // Returns the number of values, the largest valid index
+    public int size() {
+        return b1.length - 1;
+    }
+
+    private int lsb(int i) {
+        return i & -i;
+    }
+
+    // Add 'k' to every index in [i, j], one based
+    public void rangeAdd(int i, int j, long k) {
+        if (j < i) throw new IllegalArgumentException("Make sure j >= i");
+        add(i, k, k * (i - 1));
+        if (j + 1 < b1.length) add(j + 1, -k, -k * j);
+    }
+
+    // Add 'k' to index 'i', one based
+    public void add(int i, long k) {
+        rangeAdd(i, i, k);
+    }
+
+    // Set index i to be equal to k, one based
+    public void set(int i, long k) {
+        add(i, k - get(i));
+    }
+
+    // Returns the value at index i, one based
+    public long get(int i) {
+        return sum(i, i);
+    }
+
+    // Computes the prefix sum from [1, i], one based
+    public long prefixSum(int i) {
+        long sum1 = 0L, sum2 = 0L;
+        for (int x = i; x != 0; x &= ~lsb(x)) {
+            sum1 += b1[x];
+            sum2 += b2[x];
+        }
+        return sum1 * i - sum2;
+    }
+
+    // Returns the sum of the interval [i, j], one based
+    public long sum(int i, int j) {
+        if (j < i) throw new IllegalArgumentException("Make sure j >= i");
+        return prefixSum(j) - prefixSum(i - 1);
+    }
+
+    // Adds k1 to d[i] in 'b1' and k2 to d[i] * (i - 1) in 'b2'
+    private void add(int i, long k1, long k2) {
+        while (i < b1.length) {
+            b1[i] += k1;
+            b2[i] += k2;
+            i += lsb(i);
+        }
+    }
+}
@@ -0,0 +1,338 @@
+package com.tirkishovkadyr.datastructure;
+
+/*
+  A bounded cache with per-entry time-to-live, using the W-TinyLFU policy.
+
+  The entries live in a HashTableQuadraticProbing and are threaded through
+  three LRU queues:
+
+  - the window (1% of the capacity), which every new entry enters first,
+  - the probation queue, which receives the entries leaving the window,
+  - the protected queue (80% of the rest), which holds the entries that
+    were accessed again while on probation.
+
+  When the cache is full, the entry leaving the window (the candidate) and
+  the least recently used probation entry (the victim) compete for a place:
+  a count-min sketch estimates how often each was requested recently and
+  the less popular one is evicted. A one-off scan therefore flows through
+  the window without displacing the frequently used entries.
+
+  Expiring entries are also kept in a hashed timing wheel: an array of
+  WHEEL_SIZE buckets each covering 2^TICK_SHIFT nanoseconds (about one
+  second). Scheduling and cancelling are O(1), and every operation advances
+  the wheel to the current time, evicting the entries of the buckets it
+  passes. Expiry is checked exactly on every read, the wheel only decides
+  how soon the memory of expired entries is reclaimed.
+ */
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+public class TinyLfuCache<K, V> {
+
+    private static final int WHEEL_SIZE = 512, TICK_SHIFT = 30;
+    private static final long NEVER = Long.MAX_VALUE;
+
+    private static final byte WINDOW = 0, PROBATION = 1, PROTECTED = 2;
+
+    private static class Node<K, V> {
+        K key;
+        V value;
+
+        // The time at which the entry expires, NEVER if it does not
+        long expireAt;
+
+        byte queue;
+
+        // Links in the LRU queue and in the timing wheel bucket
+        Node<K, V> prev, next, timerPrev, timerNext;
+
+        // Creates the sentinel of a circular list
+        Node() {
+            prev = next = timerPrev = timerNext = this;
+        }
+
+        Node(K key, V value, long expireAt) {
+            this.key = key;
+            this.value = value;
+            this.expireAt = expireAt;
+        }
+    }
+
+    private final HashTableQuadraticProbing<K, Node<K, V>> table;
+    private final CountMinSketch sketch;
+    private final LongSupplier ticker;
+
+    private final int maximumSize, windowMaximum, protectedMaximum;
+    private final long defaultTimeToLive;
+
+    // Sentinels of the three LRU queues, the least recently used entry follows the sentinel
+    private final Node<K, V> window = new Node<>(), probation = new Node<>(), protect = new Node<>();
+    private int windowSize = 0, probationSize = 0, protectedSize = 0;
+
+    // Sentinels of the timing wheel buckets
+    private final Node<K, V>[] wheel;
+
+    // The ticker value at creation and the last tick the wheel was advanced to
+    private final long origin;
+    private long currentTick = 0;
+
+    private long hitCount = 0, missCount = 0;
+
+    // A cache whose entries do not expire unless put with a time-to-live
+    public TinyLfuCache(int maximumSize) {
+        this(maximumSize, 0, TimeUnit.NANOSECONDS);
+    }
+
+    // A cache whose entries expire 'defaultTimeToLive' after being put, zero means never
+    public TinyLfuCache(int maximumSize, long defaultTimeToLive, TimeUnit unit) {
+        this(maximumSize, unit.toNanos(defaultTimeToLive), System::nanoTime);
+    }
+
+    // Designated constructor, 'ticker' reads the current time in nanoseconds
+    @SuppressWarnings("unchecked")
+    public TinyLfuCache(int maximumSize, long defaultTimeToLiveNanos, LongSupplier ticker) {
+
+        if (maximumSize <= 0)
+            throw new IllegalArgumentException("Illegal maximumSize: " + maximumSize);
+
+        if (defaultTimeToLiveNanos < 0)
+            throw new IllegalArgumentException("Illegal defaultTimeToLive: " + defaultTimeToLiveNanos);
+
+        this.maximumSize = maximumSize;
+        this.defaultTimeToLive = defaultTimeToLiveNanos;
+        this.ticker = ticker;
+
+        windowMaximum = Math.max(1, maximumSize / 100);
+        protectedMaximum = (maximumSize - windowMaximum) * 4 / 5;
+
+        table = new HashTableQuadraticProbing<>(maximumSize);
+        sketch = new CountMinSketch(maximumSize);
+
+        wheel = (Node<K, V>[]) new Node<?, ?>[WHEEL_SIZE];
+        for (int i = 0; i < WHEEL_SIZE; i++) wheel[i] = new Node<>();
+        origin = ticker.getAsLong();
+    }
+
+    // Returns the number of entries in the cache, expired entries
+    // which were not reclaimed yet included
+    public int size() {
+        return windowSize + probationSize + protectedSize;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public long hitCount() {
+        return hitCount;
+    }
+
+    public long missCount() {
+        return missCount;
+    }
+
+    // The fraction of the 'get' calls which found a live entry
+    public double hitRate() {
+        long requests = hitCount + missCount;
+        return requests == 0 ? 1.0 : (double) hitCount / requests;
+    }
+
+    // Returns the value of the key, or null if it is absent or expired
+    public V get(K key) {
+        final long now = now();
+        advance(now);
+        sketch.increment(key);
+
+        Node<K, V> node = table.get(key);
+        if (node == null || node.expireAt <= now) {
+            if (node != null) evict(node);
+            missCount++;
+            return null;
+        }
+
+        hitCount++;
+        onAccess(node);
+        return node.value;
+    }
+
+    // Places the key in the cache with the default time-to-live
+    public void put(K key, V value) {
+        putNanos(key, value, defaultTimeToLive);
+    }
+
+    // Places the key in the cache, expiring after the given time, zero means never
+    public void put(K key, V value, long timeToLive, TimeUnit unit) {
+        if (timeToLive < 0) throw new IllegalArgumentException("Illegal timeToLive: " + timeToLive);
+        putNanos(key, value, unit.toNanos(timeToLive));
+    }
+
+    private void putNanos(K key, V value, long timeToLive) {
+        if (value == null) throw new IllegalArgumentException("Null value");
+
+        final long now = now();
+        advance(now);
+        // A time-to-live which runs past the end of the clock saturates to NEVER
+        long expireAt = now + timeToLive;
+        if (timeToLive == 0 || expireAt < now) expireAt = NEVER;
+
+        Node<K, V> node = table.get(key);
+        if (node != null) {
+            node.value = value;
+            unschedule(node);
+            node.expireAt = expireAt;
+            schedule(node);
+            onAccess(node);
+            return;
+        }
+
+        sketch.increment(key);
+        node = new Node<>(key, value, expireAt);
+        table.put(key, node);
+        schedule(node);
+        node.queue = WINDOW;
+        linkLast(window, node);
+        windowSize++;
+        evictIfNeeded();
+    }
+
+    // Removes the key from the cache and returns its value, or null if it was absent
+    // or expired
+    public V remove(K key) {
+        Node<K, V> node = table.get(key);
+        if (node == null) return null;
+        evict(node);
+        return node.expireAt <= now() ? null : node.value;
+    }
+
+    // Reclaims the expired entries now instead of during the next operations
+    public void cleanUp() {
+        advance(now());
+    }
+
+    public void clear() {
+        while (window.next != window) evict(window.next);
+        while (probation.next != probation) evict(probation.next);
+        while (protect.next != protect) evict(protect.next);
+    }
+
+    private long now() {
+        return ticker.getAsLong() - origin;
+    }
+
+    /* Eviction policy */
+
+    // Moves the entry to the most recently used end of its queue, promoting
+    // a probation entry to the protected queue
+    private void onAccess(Node<K, V> node) {
+        unlink(node);
+        if (node.queue == WINDOW) {
+            linkLast(window, node);
+        } else if (node.queue == PROTECTED) {
+            linkLast(protect, node);
+        } else {
+            probationSize--;
+            node.queue = PROTECTED;
+            linkLast(protect, node);
+            protectedSize++;
+
+            // Demote the least recently used protected entries back to probation
+            while (protectedSize > protectedMaximum) {
+                Node<K, V> demoted = protect.next;
+                unlink(demoted);
+                protectedSize--;
+                demoted.queue = PROBATION;
+                linkLast(probation, demoted);
+                probationSize++;
+            }
+        }
+    }
+
+    // Moves the overflow of the window to probation, then evicts the less popular
+    // of the candidate (the newest probation entry) and the victim (the oldest one)
+    // until the cache fits in its maximum size again
+    private void evictIfNeeded() {
+        while (windowSize > windowMaximum) {
+            Node<K, V> node = window.next;
+            unlink(node);
+            windowSize--;
+            node.queue = PROBATION;
+            linkLast(probation, node);
+            probationSize++;
+        }
+
+        while (size() > maximumSize) {
+            if (probationSize == 0) {
+                evict(protect.next);
+                continue;
+            }
+            Node<K, V> victim = probation.next, candidate = probation.prev;
+            if (candidate != victim && sketch.frequency(candidate.key) > sketch.frequency(victim.key)) evict(victim);
+            else evict(candidate);
+        }
+    }
+
+    // Removes the entry from the table, its queue and the timing wheel
+    private void evict(Node<K, V> node) {
+        table.remove(node.key);
+        unlink(node);
+        unschedule(node);
+        if (node.queue == WINDOW) windowSize--;
+        else if (node.queue == PROBATION) probationSize--;
+        else protectedSize--;
+    }
+
+    private static <K, V> void linkLast(Node<K, V> sentinel, Node<K, V> node) {
+        node.prev = sentinel.prev;
+        node.next = sentinel;
+        sentinel.prev.next = node;
+        sentinel.prev = node;
+    }
+
+    private static <K, V> void unlink(Node<K, V> node) {
+        node.prev.next = node.next;
+        node.next.prev = node.prev;
+        node.prev = node.next = null;
+    }
+
+    /* Timing wheel */
+
+    // Puts an expiring entry in the bucket of the first tick starting at or after
+    // its expiration time, so it has expired by the time 'advance' reaches that
+    // bucket. Entries due within the current tick go to the next bucket, which is
+    // the next one visited
+    private void schedule(Node<K, V> node) {
+        if (node.expireAt == NEVER) return;
+        long tick = Math.max(((node.expireAt - 1) >>> TICK_SHIFT) + 1, currentTick + 1);
+        Node<K, V> sentinel = wheel[(int) (tick & (WHEEL_SIZE - 1))];
+        node.timerPrev = sentinel.timerPrev;
+        node.timerNext = sentinel;
+        sentinel.timerPrev.timerNext = node;
+        sentinel.timerPrev = node;
+    }
+
+    private void unschedule(Node<K, V> node) {
+        if (node.timerPrev == null) return;
+        node.timerPrev.timerNext = node.timerNext;
+        node.timerNext.timerPrev = node.timerPrev;
+        node.timerPrev = node.timerNext = null;
+    }
+
+    // Visits the buckets of all the ticks elapsed since the last call and evicts their
+    // expired entries. Entries due in a later revolution of the wheel are left in place
+    private void advance(long now) {
+        long tick = now >>> TICK_SHIFT;
+        if (tick <= currentTick) return;
+
+        long ticks = Math.min(tick - currentTick, WHEEL_SIZE);
+        for (long t = 1; t <= ticks; t++) {
+            Node<K, V> sentinel = wheel[(int) ((currentTick + t) & (WHEEL_SIZE - 1))];
+            for (Node<K, V> node = sentinel.timerNext; node != sentinel; ) {
+                Node<K, V> next = node.timerNext;
+                if (node.expireAt <= now) evict(node);
+                node = next;
+            }
+        }
+        currentTick = tick;
+    }
+}
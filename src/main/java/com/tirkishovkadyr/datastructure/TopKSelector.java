@@ -0,0 +1,133 @@
+package com.tirkishovkadyr.datastructure;
+
+/*
+ * Keeps the k largest elements of a stream in O(k) memory.
+ *
+ * The kept elements form a binary min heap whose root is the smallest of them,
+ * i.e. the threshold a new element has to beat. An element that does not beat
+ * it is rejected after a single comparison, otherwise it replaces the root and
+ * is sunk, so a stream of n elements is processed in O(n*log(k)) time and
+ * usually much closer to O(n) as the threshold rises.
+ *
+ * Selectors filled from different parts of a stream, e.g. one per thread, can
+ * be combined with 'merge' to get the k largest elements of the whole stream.
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+@SuppressWarnings("unchecked")
+public class TopKSelector <T extends Comparable<T>> {
+
+    // The maximum number of elements kept
+    private final int k;
+
+    // The number of elements currently kept
+    private int heapSize = 0;
+
+    // The kept elements in min heap order
+    private final Object[] heap;
+
+    public TopKSelector(int k) {
+        if (k < 1) throw new IllegalArgumentException("Illegal k: " + k);
+        this.k = k;
+        heap = new Object[k];
+    }
+
+    public int k() {
+        return k;
+    }
+
+    // Returns the number of elements kept, at most k
+    public int size() {
+        return heapSize;
+    }
+
+    public boolean isEmpty() {
+        return heapSize == 0;
+    }
+
+    // Clears the selector, O(k)
+    public void clear() {
+        Arrays.fill(heap, 0, heapSize, null);
+        heapSize = 0;
+    }
+
+    // Returns the smallest kept element, the one the next offered element has
+    // to beat once k elements are kept, null if nothing is kept, O(1)
+    public T peek() {
+        return isEmpty() ? null : (T) heap[0];
+    }
+
+    // Offers an element and returns true if it is kept, the element must not
+    // be null, O(log(k))
+    public boolean offer(T elem) {
+        if (elem == null) throw new IllegalArgumentException();
+
+        if (heapSize < k) {
+            // Move the parents down into the hole until the element fits
+            int hole = heapSize++;
+            while (hole > 0) {
+                int parent = (hole - 1) >> 1;
+                T p = (T) heap[parent];
+                if (p.compareTo(elem) <= 0) break;
+                heap[hole] = p;
+                hole = parent;
+            }
+            heap[hole] = elem;
+            return true;
+        }
+
+        if (elem.compareTo((T) heap[0]) <= 0) return false;
+        sink(elem);
+        return true;
+    }
+
+    // Offers every remaining element of the iterator, O(n*log(k))
+    public void offerAll(Iterator<? extends T> elems) {
+        while (elems.hasNext()) offer(elems.next());
+    }
+
+    // Offers the elements kept by another selector, after which this selector
+    // keeps the k largest elements of both streams. The other selector is left
+    // unchanged, O(m*log(k))
+    public void merge(TopKSelector<? extends T> other) {
+        if (other == this) return;
+        for (int i = 0; i < other.heapSize; i++) offer((T) other.heap[i]);
+    }
+
+    // Returns the kept elements from the largest to the smallest, O(k*log(k))
+    public List<T> toSortedList() {
+        List<T> list = new ArrayList<>(heapSize);
+        for (int i = 0; i < heapSize; i++) list.add((T) heap[i]);
+        list.sort((a, b) -> b.compareTo(a));
+        return list;
+    }
+
+    // Places the element at the root and sinks it down, O(log(k))
+    private void sink(T elem) {
+        int hole = 0;
+        for (int left = 1; left < heapSize; left = 2 * hole + 1) {
+            int smallest = left;
+            if (left + 1 < heapSize && ((T) heap[left + 1]).compareTo((T) heap[left]) < 0) smallest = left + 1;
+            if (elem.compareTo((T) heap[smallest]) <= 0) break;
+            heap[hole] = heap[smallest];
+            hole = smallest;
+        }
+        heap[hole] = elem;
+    }
+
+    // Checks if the kept elements form a min heap. This method is just for
+    // testing purposes to make sure the heap invariant is still being maintained
+    public boolean isMinHeap() {
+        for (int i = 1; i < heapSize; i++)
+            if (((T) heap[i]).compareTo((T) heap[(i - 1) >> 1]) < 0) return false;
+        return true;
+    }
+
+    @Override public String toString() {
+        return toSortedList().toString();
+    }
+}
@@ -0,0 +1,103 @@
+package com.tirkishovkadyr.datastructure.benchmark;
+
+/*
+ * Replays an access trace against TinyLfuCache and against a plain LRU cache
+ * of the same size and prints the hit rate and the time per request of each.
+ *
+ * Usage: CacheTraceReplay [cacheSize] [traceFile]
+ *
+ * The trace file holds one key per line (only the first token of a line is
+ * used). Without a trace file a synthetic trace is generated: Zipf distributed
+ * requests over a fixed key space, interrupted by scans of keys which are
+ * never requested again, the workload where LRU does poorly.
+ */
+
+import com.tirkishovkadyr.datastructure.TinyLfuCache;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public class CacheTraceReplay {
+
+    public static void main(String[] args) throws IOException {
+        int cacheSize = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        String[] trace = args.length > 1 ? readTrace(Path.of(args[1])) : syntheticTrace(2_000_000, 100_000, 0.9);
+
+        System.out.printf("%d requests, cache size %d%n", trace.length, cacheSize);
+        for (int round = 0; round < 3; round++) {
+            replayTinyLfu(trace, cacheSize);
+            replayLru(trace, cacheSize);
+        }
+    }
+
+    private static void replayTinyLfu(String[] trace, int cacheSize) {
+        TinyLfuCache<String, String> cache = new TinyLfuCache<>(cacheSize);
+        long start = System.nanoTime();
+        for (String key : trace)
+            if (cache.get(key) == null) cache.put(key, key);
+        long elapsed = System.nanoTime() - start;
+        report("W-TinyLFU", cache.hitRate(), elapsed, trace.length);
+    }
+
+    private static void replayLru(String[] trace, int cacheSize) {
+        Map<String, String> cache = new LinkedHashMap<>(cacheSize * 2, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > cacheSize;
+            }
+        };
+        long hits = 0, start = System.nanoTime();
+        for (String key : trace) {
+            if (cache.get(key) != null) hits++;
+            else cache.put(key, key);
+        }
+        long elapsed = System.nanoTime() - start;
+        report("LRU", (double) hits / trace.length, elapsed, trace.length);
+    }
+
+    private static void report(String name, double hitRate, long elapsedNanos, int requests) {
+        System.out.printf("%-10s hit rate %6.2f%%  %6.1f ns/request%n", name, 100 * hitRate, (double) elapsedNanos / requests);
+    }
+
+    private static String[] readTrace(Path path) throws IOException {
+        List<String> keys = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(path)) {
+            for (String line; (line = reader.readLine()) != null; ) {
+                line = line.trim();
+                if (line.isEmpty()) continue;
+                int end = line.indexOf(' ');
+                keys.add(end < 0 ? line : line.substring(0, end));
+            }
+        }
+        return keys.toArray(new String[0]);
+    }
+
+    // Zipf(s) requests over 'keySpace' keys. Every 100k requests a scan of 20k fresh keys is inserted
+    private static String[] syntheticTrace(int requests, int keySpace, double s) {
+        double[] cdf = new double[keySpace];
+        double sum = 0;
+        for (int i = 0; i < keySpace; i++) cdf[i] = sum += 1 / Math.pow(i + 1, s);
+        for (int i = 0; i < keySpace; i++) cdf[i] /= sum;
+
+        Random random = new Random(42);
+        String[] trace = new String[requests];
+        int scanned = 0;
+        for (int i = 0; i < requests; ) {
+            if (i % 100_000 == 99_999) {
+                for (int j = 0; j < 20_000 && i < requests; j++) trace[i++] = "scan-" + scanned++;
+                continue;
+            }
+            int k = Arrays.binarySearch(cdf, random.nextDouble());
+            trace[i++] = "key-" + (k < 0 ? -k - 1 : k);
+        }
+        return trace;
+    }
+}
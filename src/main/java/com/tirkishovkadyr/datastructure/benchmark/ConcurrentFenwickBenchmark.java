@@ -0,0 +1,87 @@
+package com.tirkishovkadyr.datastructure.benchmark;
+
+/*
+ * Measures how shared histogram updates scale with the number of threads.
+ *
+ * 1, 2, 4, ... P threads add to random buckets of a shared Fenwick tree and
+ * every 'queryEvery' operations read a random prefix sum. The contenders
+ * are a FenwickTree behind a single lock, a ConcurrentFenwickTree with one
+ * stripe (atomic adds on shared cells) and one with a stripe per processor.
+ *
+ * Usage: ConcurrentFenwickBenchmark [buckets] [ops per thread] [queryEvery]
+ */
+
+import com.tirkishovkadyr.datastructure.ConcurrentFenwickTree;
+import com.tirkishovkadyr.datastructure.FenwickTree;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+public class ConcurrentFenwickBenchmark {
+
+    // The tree operations a benchmark thread needs
+    private interface Tree {
+        void add(int i, long k);
+        long prefixSum(int i);
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int buckets = args.length > 0 ? Integer.parseInt(args[0]) : 1 << 16;
+        int ops = args.length > 1 ? Integer.parseInt(args[1]) : 10_000_000;
+        int queryEvery = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+        int processors = Runtime.getRuntime().availableProcessors();
+
+        System.out.printf("%d processors, %d buckets, %d ops per thread, a query every %d ops%n",
+                processors, buckets, ops, queryEvery);
+        for (int round = 0; round < 2; round++) {
+            for (int threads = 1; threads <= processors; threads *= 2) {
+                benchmark("locked", locked(new FenwickTree(buckets)), threads, buckets, ops, queryEvery);
+                benchmark("atomic", concurrent(new ConcurrentFenwickTree(buckets)), threads, buckets, ops, queryEvery);
+                benchmark("striped", concurrent(new ConcurrentFenwickTree(buckets, processors)),
+                        threads, buckets, ops, queryEvery);
+            }
+        }
+    }
+
+    private static void benchmark(String name, Tree tree, int threads, int buckets, int ops, int queryEvery)
+            throws InterruptedException {
+        long[] checksums = new long[threads];
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            int id = t;
+            workers[t] = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long sum = 0;
+                for (int i = 1; i <= ops; i++) {
+                    if (i % queryEvery == 0) sum += tree.prefixSum(1 + random.nextInt(buckets));
+                    else tree.add(1 + random.nextInt(buckets), 1);
+                }
+                checksums[id] = sum;
+            });
+        }
+
+        long start = System.nanoTime();
+        for (Thread worker : workers) worker.start();
+        for (Thread worker : workers) worker.join();
+        long elapsed = System.nanoTime() - start;
+
+        // Every add is of 1, so the total tells whether an update was lost
+        long expectedTotal = (long) threads * (ops - ops / queryEvery);
+        System.out.printf("%-8s %2d threads %8.2f Mops/s  total %s%n", name, threads,
+                (double) threads * ops * 1000 / elapsed,
+                tree.prefixSum(buckets) == expectedTotal ? "ok" : "LOST UPDATES");
+    }
+
+    private static Tree locked(FenwickTree fenwick) {
+        return new Tree() {
+            public synchronized void add(int i, long k) { fenwick.add(i, k); }
+            public synchronized long prefixSum(int i) { return fenwick.prefixSum(i); }
+        };
+    }
+
+    private static Tree concurrent(ConcurrentFenwickTree fenwick) {
+        return new Tree() {
+            public void add(int i, long k) { fenwick.add(i, k); }
+            public long prefixSum(int i) { return fenwick.prefixSum(i); }
+        };
+    }
+}
@@ -0,0 +1,61 @@
+package com.tirkishovkadyr.datastructure.benchmark;
+
+/*
+ * Compares PQueue with DaryPQueue of degree 2, 4 and 8 on a poll heavy event
+ * loop: the queue is filled with n timestamps, then every step polls the
+ * earliest one and schedules a new event a random delay after it (the "hold"
+ * model of discrete event simulation).
+ *
+ * Usage: DaryHeapBenchmark [n] [steps]
+ */
+
+import com.tirkishovkadyr.datastructure.DaryPQueue;
+import com.tirkishovkadyr.datastructure.PQueue;
+
+import java.util.Random;
+
+public class DaryHeapBenchmark {
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int steps = args.length > 1 ? Integer.parseInt(args[1]) : 5_000_000;
+
+        for (int round = 0; round < 3; round++) {
+            System.out.printf("round %d, %d events, %d steps%n", round, n, steps);
+            benchmarkPQueue(n, steps);
+            for (int d : new int[] { 2, 4, 8 }) benchmarkDary(d, n, steps);
+        }
+    }
+
+    private static void benchmarkPQueue(int n, int steps) {
+        Random random = new Random(7);
+        PQueue<Long> pq = new PQueue<>(n);
+        for (int i = 0; i < n; i++) pq.add((long) random.nextInt(n));
+
+        long checksum = 0, start = System.nanoTime();
+        for (int i = 0; i < steps; i++) {
+            long t = pq.poll();
+            checksum += t;
+            pq.add(t + random.nextInt(n));
+        }
+        report("PQueue", System.nanoTime() - start, steps, checksum);
+    }
+
+    private static void benchmarkDary(int d, int n, int steps) {
+        Random random = new Random(7);
+        DaryPQueue<Long> pq = new DaryPQueue<>(d, n);
+        for (int i = 0; i < n; i++) pq.add((long) random.nextInt(n));
+
+        long checksum = 0, start = System.nanoTime();
+        for (int i = 0; i < steps; i++) {
+            long t = pq.poll();
+            checksum += t;
+            pq.add(t + random.nextInt(n));
+        }
+        report("DaryPQueue d=" + d, System.nanoTime() - start, steps, checksum);
+    }
+
+    private static void report(String name, long elapsedNanos, int steps, long checksum) {
+        System.out.printf("%-16s %7.1f ns/step  (checksum %d)%n", name, (double) elapsedNanos / steps, checksum);
+    }
+}
@@ -0,0 +1,225 @@
+package com.tirkishovkadyr.datastructure.benchmark;
+
+/*
+ * Compares PairingHeap and FibonacciHeap with PQueue and MinIndexedDHeap.
+ *
+ * Dijkstra: single source shortest paths on a random graph with n nodes and
+ * 8 edges per node. PQueue has no decrease key, so it gets the usual lazy
+ * variant which adds a new entry on every improvement and skips stale ones.
+ * MinIndexedDHeap, PairingHeap and FibonacciHeap lower the node's existing
+ * entry instead. Except for MinIndexedDHeap, which is indexed by node, the
+ * entries are longs holding the distance in the high bits and the node in the
+ * low 20 bits.
+ *
+ * Meld: p partition queues of n / p elements each are combined into one, by
+ * draining them into the first queue for PQueue and with 'meld' otherwise.
+ *
+ * Usage: MeldableHeapBenchmark [n] [p]
+ */
+
+import com.tirkishovkadyr.datastructure.FibonacciHeap;
+import com.tirkishovkadyr.datastructure.MinIndexedDHeap;
+import com.tirkishovkadyr.datastructure.PQueue;
+import com.tirkishovkadyr.datastructure.PairingHeap;
+
+import java.util.Arrays;
+import java.util.Random;
+
+public class MeldableHeapBenchmark {
+
+    private static final int DEGREE = 8;
+    private static final int NODE_BITS = 20;
+    private static final long NODE_MASK = (1L << NODE_BITS) - 1;
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1 << 20;
+        int p = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        if (n > 1 << NODE_BITS) throw new IllegalArgumentException("n must fit in " + NODE_BITS + " bits");
+
+        // A random graph in adjacency array form, the edges of node u are
+        // at [u * DEGREE, (u + 1) * DEGREE)
+        Random random = new Random(7);
+        int[] targets = new int[n * DEGREE];
+        long[] weights = new long[n * DEGREE];
+        for (int i = 0; i < targets.length; i++) {
+            targets[i] = random.nextInt(n);
+            weights[i] = 1 + random.nextInt(1000);
+        }
+
+        for (int round = 0; round < 3; round++) {
+            System.out.printf("round %d, Dijkstra on %d nodes and %d edges%n", round, n, targets.length);
+            long start = System.nanoTime();
+            long checksum = dijkstraPQueue(n, targets, weights);
+            report("PQueue (lazy)", start, checksum);
+
+            start = System.nanoTime();
+            checksum = dijkstraIndexed(n, targets, weights);
+            report("MinIndexedDHeap", start, checksum);
+
+            start = System.nanoTime();
+            checksum = dijkstraPairing(n, targets, weights);
+            report("PairingHeap", start, checksum);
+
+            start = System.nanoTime();
+            checksum = dijkstraFibonacci(n, targets, weights);
+            report("FibonacciHeap", start, checksum);
+
+            System.out.printf("round %d, meld %d queues of %d elements%n", round, p, n / p);
+            meldPQueue(n, p);
+            meldPairing(n, p);
+            meldFibonacci(n, p);
+        }
+    }
+
+    private static long dijkstraPQueue(int n, int[] targets, long[] weights) {
+        long[] dist = new long[n];
+        Arrays.fill(dist, Long.MAX_VALUE);
+        PQueue<Long> pq = new PQueue<>(n);
+        dist[0] = 0;
+        pq.add(0L);
+
+        while (!pq.isEmpty()) {
+            long entry = pq.poll();
+            int u = (int) (entry & NODE_MASK);
+            long d = entry >>> NODE_BITS;
+            if (d > dist[u]) continue;
+            for (int e = u * DEGREE; e < (u + 1) * DEGREE; e++) {
+                int v = targets[e];
+                long nd = d + weights[e];
+                if (nd < dist[v]) {
+                    dist[v] = nd;
+                    pq.add(nd << NODE_BITS | v);
+                }
+            }
+        }
+        return checksum(dist);
+    }
+
+    private static long dijkstraIndexed(int n, int[] targets, long[] weights) {
+        long[] dist = new long[n];
+        Arrays.fill(dist, Long.MAX_VALUE);
+        MinIndexedDHeap<Long> heap = new MinIndexedDHeap<>(4, n);
+        dist[0] = 0;
+        heap.insert(0, 0L);
+
+        while (!heap.isEmpty()) {
+            int u = heap.pollMinKeyIndex();
+            long d = dist[u];
+            for (int e = u * DEGREE; e < (u + 1) * DEGREE; e++) {
+                int v = targets[e];
+                long nd = d + weights[e];
+                if (nd < dist[v]) {
+                    if (dist[v] == Long.MAX_VALUE) heap.insert(v, nd);
+                    else heap.decrease(v, nd);
+                    dist[v] = nd;
+                }
+            }
+        }
+        return checksum(dist);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static long dijkstraPairing(int n, int[] targets, long[] weights) {
+        long[] dist = new long[n];
+        Arrays.fill(dist, Long.MAX_VALUE);
+        PairingHeap<Long> heap = new PairingHeap<>();
+        PairingHeap.Node<Long>[] nodes = (PairingHeap.Node<Long>[]) new PairingHeap.Node<?>[n];
+        dist[0] = 0;
+        nodes[0] = heap.add(0L);
+
+        while (!heap.isEmpty()) {
+            int u = (int) (heap.poll() & NODE_MASK);
+            long d = dist[u];
+            for (int e = u * DEGREE; e < (u + 1) * DEGREE; e++) {
+                int v = targets[e];
+                long nd = d + weights[e];
+                if (nd < dist[v]) {
+                    if (nodes[v] == null) nodes[v] = heap.add(nd << NODE_BITS | v);
+                    else heap.decreaseKey(nodes[v], nd << NODE_BITS | v);
+                    dist[v] = nd;
+                }
+            }
+        }
+        return checksum(dist);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static long dijkstraFibonacci(int n, int[] targets, long[] weights) {
+        long[] dist = new long[n];
+        Arrays.fill(dist, Long.MAX_VALUE);
+        FibonacciHeap<Long> heap = new FibonacciHeap<>();
+        FibonacciHeap.Node<Long>[] nodes = (FibonacciHeap.Node<Long>[]) new FibonacciHeap.Node<?>[n];
+        dist[0] = 0;
+        nodes[0] = heap.add(0L);
+
+        while (!heap.isEmpty()) {
+            int u = (int) (heap.poll() & NODE_MASK);
+            long d = dist[u];
+            for (int e = u * DEGREE; e < (u + 1) * DEGREE; e++) {
+                int v = targets[e];
+                long nd = d + weights[e];
+                if (nd < dist[v]) {
+                    if (nodes[v] == null) nodes[v] = heap.add(nd << NODE_BITS | v);
+                    else heap.decreaseKey(nodes[v], nd << NODE_BITS | v);
+                    dist[v] = nd;
+                }
+            }
+        }
+        return checksum(dist);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void meldPQueue(int n, int p) {
+        Random random = new Random(7);
+        PQueue<Long>[] queues = (PQueue<Long>[]) new PQueue<?>[p];
+        for (int i = 0; i < p; i++) {
+            queues[i] = new PQueue<>(n / p);
+            for (int j = 0; j < n / p; j++) queues[i].add(random.nextLong());
+        }
+
+        long start = System.nanoTime();
+        for (int i = 1; i < p; i++)
+            while (!queues[i].isEmpty()) queues[0].add(queues[i].poll());
+        report("PQueue (drain)", start, queues[0].peek());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void meldPairing(int n, int p) {
+        Random random = new Random(7);
+        PairingHeap<Long>[] queues = (PairingHeap<Long>[]) new PairingHeap<?>[p];
+        for (int i = 0; i < p; i++) {
+            queues[i] = new PairingHeap<>();
+            for (int j = 0; j < n / p; j++) queues[i].add(random.nextLong());
+        }
+
+        long start = System.nanoTime();
+        for (int i = 1; i < p; i++) queues[0].meld(queues[i]);
+        // The first poll after the melds pays for the deferred pairing
+        report("PairingHeap", start, queues[0].poll());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void meldFibonacci(int n, int p) {
+        Random random = new Random(7);
+        FibonacciHeap<Long>[] queues = (FibonacciHeap<Long>[]) new FibonacciHeap<?>[p];
+        for (int i = 0; i < p; i++) {
+            queues[i] = new FibonacciHeap<>();
+            for (int j = 0; j < n / p; j++) queues[i].add(random.nextLong());
+        }
+
+        long start = System.nanoTime();
+        for (int i = 1; i < p; i++) queues[0].meld(queues[i]);
+        // The first poll after the melds pays for the deferred consolidation
+        report("FibonacciHeap", start, queues[0].poll());
+    }
+
+    private static long checksum(long[] dist) {
+        long sum = 0;
+        for (long d : dist) if (d != Long.MAX_VALUE) sum += d;
+        return sum;
+    }
+
+    private static void report(String name, long start, long checksum) {
+        System.out.printf("%-16s %8.1f ms  (checksum %d)%n", name, (System.nanoTime() - start) / 1e6, checksum);
+    }
+}
@@ -0,0 +1,138 @@
+package com.tirkishovkadyr.datastructure.benchmark;
+
+/*
+ * Measures the throughput and the ordering quality of MultiQueue.
+ *
+ * Throughput: 1, 2, 4, ... P threads run the "hold" model on a shared queue,
+ * every step polls an element and adds it back a random delay later. The
+ * contenders are a PQueue behind a single lock, a ConcurrentSkipListSet (a
+ * strict lock-free skip list) and MultiQueue.
+ *
+ * Rank error: a MultiQueue is run single threaded on the same workload while a
+ * FenwickTree over the key domain counts the queued keys, so the rank of every
+ * polled key (the number of queued keys smaller than it, 0 for a strict queue)
+ * is known exactly. The mean and maximum rank are reported per queue count.
+ *
+ * Usage: MultiQueueBenchmark [n] [steps per thread]
+ */
+
+import com.tirkishovkadyr.datastructure.FenwickTree;
+import com.tirkishovkadyr.datastructure.MultiQueue;
+import com.tirkishovkadyr.datastructure.PQueue;
+
+import java.util.Random;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class MultiQueueBenchmark {
+
+    // The queue operations a benchmark thread needs
+    private interface Queue {
+        void add(long key);
+        long poll();
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int steps = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+        int processors = Runtime.getRuntime().availableProcessors();
+
+        System.out.printf("%d processors, %d keys, %d steps per thread%n", processors, n, steps);
+        for (int threads = 1; threads <= processors; threads *= 2) {
+            benchmark("locked PQueue", lockedPQueue(), threads, n, steps);
+            benchmark("skip list", skipList(), threads, n, steps);
+            benchmark("MultiQueue", multiQueue(new MultiQueue<>(2 * threads)), threads, n, steps);
+        }
+
+        System.out.println();
+        for (int queues = 2; queues <= 4 * processors; queues *= 2) rankError(queues, n / 10, steps);
+    }
+
+    private static void benchmark(String name, Queue queue, int threads, int n, int steps)
+            throws InterruptedException {
+        Random random = new Random(7);
+        for (int i = 0; i < n; i++) queue.add(random.nextInt(n));
+
+        AtomicLong checksum = new AtomicLong();
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(() -> {
+                ThreadLocalRandom r = ThreadLocalRandom.current();
+                long sum = 0;
+                for (int i = 0; i < steps; i++) {
+                    long key = queue.poll();
+                    sum += key;
+                    queue.add(key + r.nextInt(n));
+                }
+                checksum.addAndGet(sum);
+            });
+        }
+
+        long start = System.nanoTime();
+        for (Thread worker : workers) worker.start();
+        for (Thread worker : workers) worker.join();
+        long elapsed = System.nanoTime() - start;
+
+        System.out.printf("%-14s %2d threads %8.2f Mops/s  (checksum %d)%n",
+                name, threads, (double) threads * steps * 1000 / elapsed, checksum.get());
+    }
+
+    // Runs the hold model single threaded and measures the rank of every polled key
+    private static void rankError(int queues, int n, int steps) {
+        MultiQueue<Long> queue = new MultiQueue<>(queues);
+        Random random = new Random(7);
+
+        // Polled keys stay close to the minimum, which grows by about n / n = 1
+        // per step, so the keys are capped to a domain a little above n + steps
+        int domain = n * (steps / n + 2);
+        FenwickTree counts = new FenwickTree(domain);
+        for (int i = 0; i < n; i++) {
+            long key = random.nextInt(n);
+            queue.add(key);
+            counts.add((int) key + 1, 1);
+        }
+
+        long rankSum = 0, maxRank = 0;
+        for (int i = 0; i < steps; i++) {
+            long key = queue.poll();
+            long rank = key == 0 ? 0 : counts.prefixSum((int) key);
+            rankSum += rank;
+            maxRank = Math.max(maxRank, rank);
+            counts.add((int) key + 1, -1);
+
+            long next = Math.min(domain - 1, key + random.nextInt(n));
+            queue.add(next);
+            counts.add((int) next + 1, 1);
+        }
+
+        System.out.printf("MultiQueue %3d queues  mean rank %7.2f  max rank %5d%n",
+                queues, (double) rankSum / steps, maxRank);
+    }
+
+    private static Queue lockedPQueue() {
+        PQueue<Long> pq = new PQueue<>();
+        return new Queue() {
+            public synchronized void add(long key) { pq.add(key); }
+            public synchronized long poll() { return pq.poll(); }
+        };
+    }
+
+    // The set needs distinct elements, so every key carries a unique sequence
+    // number in its low bits
+    private static Queue skipList() {
+        ConcurrentSkipListSet<Long> set = new ConcurrentSkipListSet<>();
+        AtomicLong sequence = new AtomicLong();
+        return new Queue() {
+            public void add(long key) { set.add(key << 24 | (sequence.getAndIncrement() & 0xFFFFFF)); }
+            public long poll() { return set.pollFirst() >>> 24; }
+        };
+    }
+
+    private static Queue multiQueue(MultiQueue<Long> mq) {
+        return new Queue() {
+            public void add(long key) { mq.add(key); }
+            public long poll() { return mq.poll(); }
+        };
+    }
+}
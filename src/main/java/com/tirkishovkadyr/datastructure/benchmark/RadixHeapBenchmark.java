@@ -0,0 +1,188 @@
+package com.tirkishovkadyr.datastructure.benchmark;
+
+/*
+ * Compares RadixHeap with the comparison based heaps on two monotone
+ * workloads.
+ *
+ * Hold: the queue is filled with n timestamps, then every step polls the
+ * earliest one and schedules a new event a random delay, of up to 'delay',
+ * after it. Small delays favour the radix heap, whose cost grows with the log
+ * of the key range rather than of the queue size.
+ *
+ * Dijkstra: single source shortest paths on a random graph with n nodes and
+ * 8 edges per node, using lazy insertion for RadixHeap and
+ * LongIntPriorityQueue and 'decrease' for MinIndexedDHeap.
+ *
+ * Usage: RadixHeapBenchmark [n] [steps]
+ */
+
+import com.tirkishovkadyr.datastructure.DaryPQueue;
+import com.tirkishovkadyr.datastructure.LongIntPriorityQueue;
+import com.tirkishovkadyr.datastructure.MinIndexedDHeap;
+import com.tirkishovkadyr.datastructure.RadixHeap;
+
+import java.util.Arrays;
+import java.util.Random;
+
+public class RadixHeapBenchmark {
+
+    private static final int DEGREE = 8;
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int steps = args.length > 1 ? Integer.parseInt(args[1]) : 5_000_000;
+
+        Random random = new Random(7);
+        int[] targets = new int[n * DEGREE];
+        long[] weights = new long[n * DEGREE];
+        for (int i = 0; i < targets.length; i++) {
+            targets[i] = random.nextInt(n);
+            weights[i] = 1 + random.nextInt(1000);
+        }
+
+        for (int round = 0; round < 3; round++) {
+            for (int delay : new int[] { 1_000, n }) {
+                System.out.printf("round %d, hold with %d events, %d steps, delays up to %d%n", round, n, steps, delay);
+                holdRadix(n, steps, delay);
+                holdLongInt(n, steps, delay);
+                holdDary(n, steps, delay);
+            }
+
+            System.out.printf("round %d, Dijkstra on %d nodes and %d edges%n", round, n, targets.length);
+            long start = System.nanoTime();
+            long checksum = dijkstraRadix(n, targets, weights);
+            report("RadixHeap", start, checksum);
+
+            start = System.nanoTime();
+            checksum = dijkstraLongInt(n, targets, weights);
+            report("LongIntPQ", start, checksum);
+
+            start = System.nanoTime();
+            checksum = dijkstraIndexed(n, targets, weights);
+            report("MinIndexedDHeap", start, checksum);
+        }
+    }
+
+    private static void holdRadix(int n, int steps, int delay) {
+        Random random = new Random(7);
+        RadixHeap heap = new RadixHeap(0);
+        for (int i = 0; i < n; i++) heap.add(random.nextInt(delay), i);
+
+        long checksum = 0, start = System.nanoTime();
+        for (int i = 0; i < steps; i++) {
+            long t = heap.peekKey();
+            int event = heap.poll();
+            checksum += t;
+            heap.add(t + random.nextInt(delay), event);
+        }
+        report("RadixHeap", start, checksum);
+    }
+
+    private static void holdLongInt(int n, int steps, int delay) {
+        Random random = new Random(7);
+        LongIntPriorityQueue pq = new LongIntPriorityQueue(n);
+        for (int i = 0; i < n; i++) pq.add(random.nextInt(delay), i);
+
+        long checksum = 0, start = System.nanoTime();
+        for (int i = 0; i < steps; i++) {
+            long t = pq.peekKey();
+            int event = pq.poll();
+            checksum += t;
+            pq.add(t + random.nextInt(delay), event);
+        }
+        report("LongIntPQ", start, checksum);
+    }
+
+    private static void holdDary(int n, int steps, int delay) {
+        Random random = new Random(7);
+        DaryPQueue<Long> pq = new DaryPQueue<>(4, n);
+        for (int i = 0; i < n; i++) pq.add((long) random.nextInt(delay));
+
+        long checksum = 0, start = System.nanoTime();
+        for (int i = 0; i < steps; i++) {
+            long t = pq.poll();
+            checksum += t;
+            pq.add(t + random.nextInt(delay));
+        }
+        report("DaryPQueue d=4", start, checksum);
+    }
+
+    private static long dijkstraRadix(int n, int[] targets, long[] weights) {
+        long[] dist = new long[n];
+        Arrays.fill(dist, Long.MAX_VALUE);
+        RadixHeap heap = new RadixHeap(0);
+        dist[0] = 0;
+        heap.add(0, 0);
+
+        while (!heap.isEmpty()) {
+            long d = heap.peekKey();
+            int u = heap.poll();
+            if (d > dist[u]) continue;
+            for (int e = u * DEGREE; e < (u + 1) * DEGREE; e++) {
+                int v = targets[e];
+                long nd = d + weights[e];
+                if (nd < dist[v]) {
+                    dist[v] = nd;
+                    heap.add(nd, v);
+                }
+            }
+        }
+        return checksum(dist);
+    }
+
+    private static long dijkstraLongInt(int n, int[] targets, long[] weights) {
+        long[] dist = new long[n];
+        Arrays.fill(dist, Long.MAX_VALUE);
+        LongIntPriorityQueue pq = new LongIntPriorityQueue(n);
+        dist[0] = 0;
+        pq.add(0, 0);
+
+        while (!pq.isEmpty()) {
+            long d = pq.peekKey();
+            int u = pq.poll();
+            if (d > dist[u]) continue;
+            for (int e = u * DEGREE; e < (u + 1) * DEGREE; e++) {
+                int v = targets[e];
+                long nd = d + weights[e];
+                if (nd < dist[v]) {
+                    dist[v] = nd;
+                    pq.add(nd, v);
+                }
+            }
+        }
+        return checksum(dist);
+    }
+
+    private static long dijkstraIndexed(int n, int[] targets, long[] weights) {
+        long[] dist = new long[n];
+        Arrays.fill(dist, Long.MAX_VALUE);
+        MinIndexedDHeap<Long> heap = new MinIndexedDHeap<>(4, n);
+        dist[0] = 0;
+        heap.insert(0, 0L);
+
+        while (!heap.isEmpty()) {
+            int u = heap.pollMinKeyIndex();
+            long d = dist[u];
+            for (int e = u * DEGREE; e < (u + 1) * DEGREE; e++) {
+                int v = targets[e];
+                long nd = d + weights[e];
+                if (nd < dist[v]) {
+                    if (dist[v] == Long.MAX_VALUE) heap.insert(v, nd);
+                    else heap.decrease(v, nd);
+                    dist[v] = nd;
+                }
+            }
+        }
+        return checksum(dist);
+    }
+
+    private static long checksum(long[] dist) {
+        long sum = 0;
+        for (long d : dist) if (d != Long.MAX_VALUE) sum += d;
+        return sum;
+    }
+
+    private static void report(String name, long start, long checksum) {
+        System.out.printf("%-16s %8.1f ms  (checksum %d)%n", name, (System.nanoTime() - start) / 1e6, checksum);
+    }
+}
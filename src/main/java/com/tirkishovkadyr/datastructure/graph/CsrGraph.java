@@ -0,0 +1,203 @@
+package com.tirkishovkadyr.datastructure.graph;
+
+/*
+  An immutable weighted graph in compressed sparse row (CSR) form.
+
+  The edges are sorted by source node and stored in two flat arrays,
+  'targets' and 'weights'. The outgoing edges of node u are the edge
+  indexes [firstEdge(u), endEdge(u)), where the node boundaries come from
+  a third array of n + 1 offsets. There is no object per node or per edge:
+  a graph with m edges takes 4(n + 1) + 12m bytes, and iterating over the
+  neighbours of a node reads consecutive memory.
+
+  The arrays are kept in int and double buffers, which either wrap heap
+  arrays (a graph built with 'directed' or 'undirected') or map a file
+  written by 'write' (a graph opened with 'map'). A mapped graph is paged in
+  by the operating system on demand, so graphs larger than the heap can be
+  processed. Every section of a mapped file must fit in a single 2GB
+  mapping, which limits mapped graphs to 2^28 edges.
+ */
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+public final class CsrGraph {
+
+    private static final int FILE_MAGIC = 0x43535247, FILE_VERSION = 1, FILE_HEADER_BYTES = 16;
+
+    // The size of the buffer used to write a section of the file
+    private static final int WRITE_CHUNK_BYTES = 1 << 20;
+
+    private final int nodeCount, edgeCount;
+    private final IntBuffer offsets, targets;
+    private final DoubleBuffer weights;
+
+    private CsrGraph(int nodeCount, int edgeCount, IntBuffer offsets, IntBuffer targets, DoubleBuffer weights) {
+        this.nodeCount = nodeCount;
+        this.edgeCount = edgeCount;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+    }
+
+    // Builds a directed graph on nodes [0, n) with an edge from[i] -> to[i] of
+    // weight weights[i] for every i, with a counting sort, O(n + m)
+    public static CsrGraph directed(int n, int[] from, int[] to, double[] weights) {
+        return build(n, from, to, weights, false);
+    }
+
+    // Builds an undirected graph on nodes [0, n): every edge {from[i], to[i]}
+    // is stored once in each direction, O(n + m)
+    public static CsrGraph undirected(int n, int[] from, int[] to, double[] weights) {
+        return build(n, from, to, weights, true);
+    }
+
+    private static CsrGraph build(int n, int[] from, int[] to, double[] weights, boolean undirected) {
+        if (n < 0) throw new IllegalArgumentException("Illegal node count: " + n);
+        if (from.length != to.length || from.length != weights.length)
+            throw new IllegalArgumentException("Edge arrays have different lengths");
+        long m = undirected ? 2L * from.length : from.length;
+        if (m > Integer.MAX_VALUE - 8) throw new IllegalArgumentException("Too many edges: " + m);
+
+        // Count the out degree of every node into offsets[u + 1]
+        int[] offsets = new int[n + 1];
+        for (int i = 0; i < from.length; i++) {
+            nodeInRangeOrThrow(from[i], n);
+            nodeInRangeOrThrow(to[i], n);
+            offsets[from[i] + 1]++;
+            if (undirected) offsets[to[i] + 1]++;
+        }
+        for (int u = 0; u < n; u++) offsets[u + 1] += offsets[u];
+
+        // Place every edge at the next free index of its source
+        int[] next = Arrays.copyOf(offsets, n);
+        int[] csrTargets = new int[(int) m];
+        double[] csrWeights = new double[(int) m];
+        for (int i = 0; i < from.length; i++) {
+            int e = next[from[i]]++;
+            csrTargets[e] = to[i];
+            csrWeights[e] = weights[i];
+            if (undirected) {
+                e = next[to[i]]++;
+                csrTargets[e] = from[i];
+                csrWeights[e] = weights[i];
+            }
+        }
+        return new CsrGraph(n, (int) m, IntBuffer.wrap(offsets), IntBuffer.wrap(csrTargets), DoubleBuffer.wrap(csrWeights));
+    }
+
+    public int nodeCount() {
+        return nodeCount;
+    }
+
+    public int edgeCount() {
+        return edgeCount;
+    }
+
+    // The index of the first outgoing edge of node u
+    public int firstEdge(int u) {
+        return offsets.get(u);
+    }
+
+    // One past the index of the last outgoing edge of node u
+    public int endEdge(int u) {
+        return offsets.get(u + 1);
+    }
+
+    public int degree(int u) {
+        return endEdge(u) - firstEdge(u);
+    }
+
+    // The node edge e points to
+    public int target(int e) {
+        return targets.get(e);
+    }
+
+    public double weight(int e) {
+        return weights.get(e);
+    }
+
+    // The node edge e starts from, found by binary search over the offsets, O(log(n))
+    public int source(int e) {
+        if (e < 0 || e >= edgeCount) throw new IllegalArgumentException("Edge out of bounds; received: " + e);
+        int lo = 0, hi = nodeCount - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (offsets.get(mid) <= e) lo = mid;
+            else hi = mid - 1;
+        }
+        return lo;
+    }
+
+    // Writes the graph to a file which 'map' can open: a header followed by
+    // the offsets, the targets and the weights, all little endian
+    public void write(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+
+            ByteBuffer buffer = ByteBuffer.allocate(WRITE_CHUNK_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(FILE_MAGIC).putInt(FILE_VERSION).putInt(nodeCount).putInt(edgeCount);
+            writeFully(channel, buffer.flip());
+
+            writeInts(channel, buffer, offsets, nodeCount + 1);
+            writeInts(channel, buffer, targets, edgeCount);
+            for (int i = 0; i < edgeCount; ) {
+                buffer.clear();
+                while (i < edgeCount && buffer.remaining() >= Double.BYTES) buffer.putDouble(weights.get(i++));
+                writeFully(channel, buffer.flip());
+            }
+        }
+    }
+
+    // Maps a file written by 'write' read only, without reading its contents
+    public static CsrGraph map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+
+            ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining()) if (channel.read(header) < 0) throw new IOException("Truncated graph file");
+            header.flip();
+            if (header.getInt() != FILE_MAGIC || header.getInt() != FILE_VERSION)
+                throw new IOException("Not a CSR graph file");
+
+            int n = header.getInt(), m = header.getInt();
+            long offsetBytes = (n + 1L) * Integer.BYTES, targetBytes = (long) m * Integer.BYTES;
+            long weightBytes = (long) m * Double.BYTES;
+            if (n < 0 || m < 0 || channel.size() != FILE_HEADER_BYTES + offsetBytes + targetBytes + weightBytes)
+                throw new IOException("Corrupted graph file");
+            if (weightBytes > Integer.MAX_VALUE) throw new IOException("Graph too large to map: " + m + " edges");
+
+            long position = FILE_HEADER_BYTES;
+            IntBuffer offsets = mapSection(channel, position, offsetBytes).asIntBuffer();
+            IntBuffer targets = mapSection(channel, position += offsetBytes, targetBytes).asIntBuffer();
+            DoubleBuffer weights = mapSection(channel, position + targetBytes, weightBytes).asDoubleBuffer();
+            return new CsrGraph(n, m, offsets, targets, weights);
+        }
+    }
+
+    private static ByteBuffer mapSection(FileChannel channel, long position, long size) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static void writeInts(FileChannel channel, ByteBuffer buffer, IntBuffer values, int count) throws IOException {
+        for (int i = 0; i < count; ) {
+            buffer.clear();
+            while (i < count && buffer.remaining() >= Integer.BYTES) buffer.putInt(values.get(i++));
+            writeFully(channel, buffer.flip());
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) channel.write(buffer);
+    }
+
+    private static void nodeInRangeOrThrow(int u, int n) {
+        if (u < 0 || u >= n) throw new IllegalArgumentException("Node out of bounds; received: " + u);
+    }
+}
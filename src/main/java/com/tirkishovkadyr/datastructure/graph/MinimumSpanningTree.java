@@ -0,0 +1,117 @@
+package com.tirkishovkadyr.datastructure.graph;
+
+/*
+ * Minimum spanning forests of an undirected CsrGraph, built by 'undirected'
+ * so that every edge is stored in both directions.
+ *
+ * Both algorithms return the edge indexes of the forest, one per node which
+ * is not the first node of its component, with 'CsrGraph.source' and
+ * 'CsrGraph.target' giving their endpoints.
+ *
+ * - Prim grows a tree from every not yet reached node, keeping the cheapest
+ *   known edge into every other node in a MinIndexedDoubleDHeap and lowering
+ *   it with 'decrease', O(m * log(n)).
+ *
+ * - Kruskal takes the edges from the cheapest up and keeps those which join
+ *   two components of a UnionFind. The edges are heapified in O(m) and
+ *   taken from the heap rather than sorted up front, so it stops as soon as
+ *   the forest is complete, O(m + k * log(m)) for the k edges looked at.
+ */
+
+import com.tirkishovkadyr.datastructure.LongIntPriorityQueue;
+import com.tirkishovkadyr.datastructure.MinIndexedDoubleDHeap;
+import com.tirkishovkadyr.datastructure.UnionFind;
+
+import java.util.Arrays;
+
+public final class MinimumSpanningTree {
+
+    private static final int HEAP_DEGREE = 4;
+
+    private MinimumSpanningTree() {}
+
+    public static int[] prim(CsrGraph graph) {
+        int n = graph.nodeCount();
+        boolean[] inTree = new boolean[n];
+        int[] bestEdge = new int[n];
+        Arrays.fill(bestEdge, -1);
+
+        MinIndexedDoubleDHeap heap = new MinIndexedDoubleDHeap(HEAP_DEGREE, Math.max(1, n));
+        int[] forest = new int[Math.max(0, n - 1)];
+        int size = 0;
+
+        for (int root = 0; root < n; root++) {
+            if (inTree[root]) continue;
+            heap.insert(root, 0);
+
+            while (!heap.isEmpty()) {
+                int u = heap.pollMinKeyIndex();
+                inTree[u] = true;
+                if (u != root) forest[size++] = bestEdge[u];
+
+                for (int e = graph.firstEdge(u), end = graph.endEdge(u); e < end; e++) {
+                    int v = graph.target(e);
+                    if (inTree[v]) continue;
+                    double w = graph.weight(e);
+                    if (bestEdge[v] == -1) {
+                        bestEdge[v] = e;
+                        heap.insert(v, w);
+                    } else if (w < heap.valueOf(v)) {
+                        bestEdge[v] = e;
+                        heap.decrease(v, w);
+                    }
+                }
+            }
+        }
+        return Arrays.copyOf(forest, size);
+    }
+
+    public static int[] kruskal(CsrGraph graph) {
+        int n = graph.nodeCount();
+        if (n == 0) return new int[0];
+
+        // Queue every edge once, from its smaller endpoint, and heapify them
+        // all at once. The weights are mapped to longs which compare like the
+        // doubles do
+        int m = 0;
+        for (int u = 0; u < n; u++)
+            for (int e = graph.firstEdge(u), end = graph.endEdge(u); e < end; e++)
+                if (u < graph.target(e)) m++;
+        long[] keys = new long[m];
+        int[] ids = new int[m];
+        m = 0;
+        for (int u = 0; u < n; u++)
+            for (int e = graph.firstEdge(u), end = graph.endEdge(u); e < end; e++)
+                if (u < graph.target(e)) {
+                    keys[m] = sortableBits(graph.weight(e));
+                    ids[m++] = e;
+                }
+        LongIntPriorityQueue edges = new LongIntPriorityQueue(keys, ids, m);
+
+        UnionFind components = new UnionFind(n);
+        int[] forest = new int[n - 1];
+        int size = 0;
+        while (size < n - 1 && !edges.isEmpty()) {
+            int e = edges.poll();
+            int u = graph.source(e), v = graph.target(e);
+            if (components.connected(u, v)) continue;
+            components.unify(u, v);
+            forest[size++] = e;
+        }
+        return Arrays.copyOf(forest, size);
+    }
+
+    // Returns the total weight of a set of edges
+    public static double weight(CsrGraph graph, int[] edges) {
+        double total = 0;
+        for (int e : edges) total += graph.weight(e);
+        return total;
+    }
+
+    // Flips the bits of negative doubles so that the signed order of the
+    // results matches the order of the doubles
+    private static long sortableBits(double value) {
+        long bits = Double.doubleToLongBits(value);
+        return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+    }
+}
@@ -0,0 +1,67 @@
+package com.tirkishovkadyr.datastructure.graph;
+
+/*
+ * Single source shortest paths on a CsrGraph with Dijkstra's algorithm.
+ *
+ * The frontier is a MinIndexedDoubleDHeap indexed by node, so every node is
+ * in the heap at most once and an improved distance lowers its entry with
+ * 'decrease' instead of adding a duplicate. This keeps the heap no larger
+ * than the number of nodes, O((n + m) * log(n)) time overall.
+ */
+
+import com.tirkishovkadyr.datastructure.MinIndexedDoubleDHeap;
+
+import java.util.Arrays;
+
+public final class ShortestPaths {
+
+    // The degree of the heap, 4 keeps the heap shallow while the children of
+    // a node still share a cache line
+    private static final int HEAP_DEGREE = 4;
+
+    private ShortestPaths() {}
+
+    // Returns the distance from the source to every node, infinity for the
+    // nodes which cannot be reached. Weights must be non negative
+    public static double[] dijkstra(CsrGraph graph, int source) {
+        return dijkstra(graph, source, null);
+    }
+
+    // Like dijkstra(graph, source), and if 'parentEdge' is not null, also fills
+    // it with the edge through which every node is reached on a shortest path,
+    // -1 for the source and for the nodes which cannot be reached
+    public static double[] dijkstra(CsrGraph graph, int source, int[] parentEdge) {
+        int n = graph.nodeCount();
+        if (source < 0 || source >= n) throw new IllegalArgumentException("Source out of bounds; received: " + source);
+        if (parentEdge != null && parentEdge.length < n) throw new IllegalArgumentException("parentEdge is too short");
+
+        double[] dist = new double[n];
+        Arrays.fill(dist, Double.POSITIVE_INFINITY);
+        if (parentEdge != null) Arrays.fill(parentEdge, 0, n, -1);
+
+        MinIndexedDoubleDHeap heap = new MinIndexedDoubleDHeap(HEAP_DEGREE, n);
+        dist[source] = 0;
+        heap.insert(source, 0);
+
+        while (!heap.isEmpty()) {
+            int u = heap.pollMinKeyIndex();
+            double d = dist[u];
+            for (int e = graph.firstEdge(u), end = graph.endEdge(u); e < end; e++) {
+                double w = graph.weight(e);
+                if (w < 0) throw new IllegalArgumentException("Negative edge weight: " + w);
+
+                int v = graph.target(e);
+                double nd = d + w;
+                if (nd < dist[v]) {
+                    // A node whose distance is still infinite has never been
+                    // in the heap, one with a finite distance is in it
+                    if (dist[v] == Double.POSITIVE_INFINITY) heap.insert(v, nd);
+                    else heap.decrease(v, nd);
+                    dist[v] = nd;
+                    if (parentEdge != null) parentEdge[v] = e;
+                }
+            }
+        }
+        return dist;
+    }
+}
@@ -0,0 +1,94 @@
+package com.tirkishovkadyr.datastructure;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+public class TinyLfuCacheTest {
+
+    // The span of one timing wheel bucket
+    private static final long TICK = 1L << 30;
+
+    // A ticker the tests move by hand
+    private long time = 0;
+
+    @Test
+    public void expiredEntriesAreReclaimedWithinTwoTicks() {
+        long timeToLive = 1_500_000_000L;
+        TinyLfuCache<Integer, Integer> cache = new TinyLfuCache<>(1000, timeToLive, () -> time);
+        for (int i = 0; i < 100; i++) cache.put(i, i);
+        assertEquals(100, cache.size());
+
+        // Visit every bucket as soon as its tick starts
+        while (time < timeToLive + 2 * TICK) {
+            time += TICK;
+            cache.cleanUp();
+        }
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void periodicCleanUpReclaimsExpiredEntries() {
+        TinyLfuCache<Integer, Integer> cache = new TinyLfuCache<>(1000, TimeUnit.MILLISECONDS.toNanos(1500), () -> time);
+        for (int i = 0; i < 100; i++) cache.put(i, i);
+
+        long cleanUpEvery = TimeUnit.MILLISECONDS.toNanos(1100);
+        while (time < TimeUnit.MILLISECONDS.toNanos(1500) + 2 * TICK) {
+            time += cleanUpEvery;
+            cache.cleanUp();
+        }
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void liveEntriesSurviveCleanUp() {
+        TinyLfuCache<Integer, Integer> cache = new TinyLfuCache<>(1000, 0, () -> time);
+        cache.put(1, 1, 10, TimeUnit.SECONDS);
+        cache.put(2, 2);
+
+        time = TimeUnit.SECONDS.toNanos(9);
+        cache.cleanUp();
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.get(1));
+
+        time = TimeUnit.SECONDS.toNanos(10) + 2 * TICK;
+        cache.cleanUp();
+        assertEquals(1, cache.size());
+        assertEquals(2, cache.get(2));
+    }
+
+    @Test
+    public void hugeTimeToLiveNeverExpires() {
+        TinyLfuCache<Integer, Integer> cache = new TinyLfuCache<>(1000, Long.MAX_VALUE, () -> time);
+
+        // The cache's clock starts at zero, so move it on for now + timeToLive to overflow
+        time = TimeUnit.DAYS.toNanos(1);
+        cache.put(1, 1);
+        cache.put(2, 2, Long.MAX_VALUE, TimeUnit.SECONDS);
+        cache.put(3, 3, Long.MAX_VALUE - 1, TimeUnit.NANOSECONDS);
+        assertEquals(1, cache.get(1));
+        assertEquals(2, cache.get(2));
+        assertEquals(3, cache.get(3));
+
+        time += TimeUnit.DAYS.toNanos(365);
+        cache.cleanUp();
+        assertEquals(3, cache.size());
+        assertEquals(1, cache.get(1));
+        assertEquals(2, cache.get(2));
+        assertEquals(3, cache.get(3));
+    }
+
+    @Test
+    public void removeTreatsExpiredEntriesAsAbsent() {
+        TinyLfuCache<Integer, Integer> cache = new TinyLfuCache<>(1000, 1000, () -> time);
+        cache.put(1, 1);
+        cache.put(2, 2);
+        assertEquals(1, cache.remove(1));
+
+        time = 1000;
+        assertNull(cache.remove(2));
+        assertEquals(0, cache.size());
+    }
+}